@@ -0,0 +1,134 @@
+package ru.dovakun.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Клиент Hilla-эндпоинтов поверх HTTP: запросы идут так же, как из браузера, через Tomcat,
+ * фильтры безопасности и сериализацию. Сессия и CSRF-токен берутся один раз при подключении
+ * и общие для всех запросов прогона.
+ */
+final class EndpointClient {
+
+    private static final Pattern META = Pattern.compile("<meta\\s+name=\"(_csrf(?:_header)?)\"\\s+content=\"([^\"]*)\"");
+    private static final String XSRF_COOKIE = "XSRF-TOKEN";
+    private static final String XSRF_HEADER = "X-XSRF-TOKEN";
+
+    /**
+     * Ответ эндпоинта с ошибкой. {@code type} — имя класса исключения на сервере, если сервер его передал.
+     */
+    static final class CallException extends IOException {
+
+        private final int status;
+        private final String type;
+
+        CallException(int status, String type, String message) {
+            super("HTTP " + status + (type != null ? " " + type : "") + (message != null ? ": " + message : ""));
+            this.status = status;
+            this.type = type;
+        }
+
+        int status() {
+            return status;
+        }
+
+        String type() {
+            return type;
+        }
+    }
+
+    private final URI base;
+    private final String endpoint;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final CookieManager cookies = new CookieManager();
+    private final HttpClient http;
+    private String csrfHeader;
+    private String csrfToken;
+
+    EndpointClient(URI base, String endpoint) {
+        this.base = base;
+        this.endpoint = endpoint;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .cookieHandler(cookies)
+                .build();
+    }
+
+    /**
+     * Открывает сессию и достаёт CSRF-токен. Страница приложения отдаёт его в мета-тегах
+     * {@code _csrf}/{@code _csrf_header}; если их нет, используется cookie {@code XSRF-TOKEN}.
+     */
+    void connect() throws IOException, InterruptedException {
+        HttpResponse<String> page = http.send(HttpRequest.newBuilder(base.resolve("/")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = META.matcher(page.body());
+        while (matcher.find()) {
+            if (matcher.group(1).equals("_csrf")) {
+                csrfToken = matcher.group(2);
+            } else {
+                csrfHeader = matcher.group(2);
+            }
+        }
+        if (csrfToken == null) {
+            for (HttpCookie cookie : cookies.getCookieStore().get(base)) {
+                if (cookie.getName().equals(XSRF_COOKIE)) {
+                    csrfToken = cookie.getValue();
+                }
+            }
+        }
+        if (csrfToken == null) {
+            throw new IOException("Не удалось получить CSRF-токен со страницы " + page.uri()
+                    + " (HTTP " + page.statusCode() + ")");
+        }
+        if (csrfHeader == null) {
+            csrfHeader = XSRF_HEADER;
+        }
+    }
+
+    /**
+     * Вызывает метод эндпоинта с именованными параметрами и возвращает разобранный ответ.
+     */
+    JsonNode call(String method, Map<String, ?> parameters) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/connect/" + endpoint + "/" + method))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header(csrfHeader, csrfToken)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(parameters)))
+                .build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        boolean empty = response.body().length == 0;
+        JsonNode body = empty ? null : readBody(response.body());
+        // Не-JSON с кодом 200 — это страница входа после перенаправления, а не ответ эндпоинта
+        if (response.statusCode() != 200 || (!empty && body == null)) {
+            throw new CallException(response.statusCode(), text(body, "type"), text(body, "message"));
+        }
+        return body;
+    }
+
+    private JsonNode readBody(byte[] body) {
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            // Ошибки до эндпоинта (фильтры, Tomcat) приходят не в JSON
+            return null;
+        }
+    }
+
+    private static String text(JsonNode body, String field) {
+        return body != null && body.hasNonNull(field) ? body.get(field).asText() : null;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.dovakun.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Накопитель задержек одного вида операции. Значения хранятся целиком (прогон короткий),
+ * перцентили считаются по отсортированной копии в конце.
+ */
+final class LatencyStats {
+
+    record Summary(long requests, long errors, long rejected, double throughput,
+                   double p50Millis, double p99Millis, double maxMillis, double errorRate) {}
+
+    private long[] latencies = new long[1024];
+    private int size;
+    private long errors;
+    private long rejected;
+
+    synchronized void success(long nanos) {
+        add(nanos);
+    }
+
+    /**
+     * Ошибка тоже учитывается в задержках: медленный отказ нагружает сервер так же, как успех.
+     */
+    synchronized void failure(long nanos, boolean overload) {
+        add(nanos);
+        if (overload) {
+            rejected++;
+        } else {
+            errors++;
+        }
+    }
+
+    private void add(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = nanos;
+    }
+
+    /**
+     * Добавляет накопленное в {@code target}; используется для общей сводки по всем операциям.
+     */
+    synchronized void copyTo(LatencyStats target) {
+        synchronized (target) {
+            for (int i = 0; i < size; i++) {
+                target.add(latencies[i]);
+            }
+            target.errors += errors;
+            target.rejected += rejected;
+        }
+    }
+
+    synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        return new Summary(size, errors, rejected, size / seconds,
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(size > 0 ? sorted[size - 1] : 0),
+                size > 0 ? (double) (errors + rejected) / size : 0);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
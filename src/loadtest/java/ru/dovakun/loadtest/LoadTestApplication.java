@@ -0,0 +1,118 @@
+package ru.dovakun.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import ru.dovakun.Application;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Нагрузочный прогон в одном процессе: генерирует тестовый репозиторий, поднимает приложение
+ * поверх него на случайном порту и гоняет смешанную нагрузку на {@code GitEndpoint} по HTTP,
+ * как браузер. Итог пишется в JSON, чтобы сравнивать сборки между собой.
+ *
+ * <p>Запуск: {@code mvn -Ploadtest spring-boot:run -Dspring-boot.run.arguments="--loadtest.duration=PT60S"}.
+ */
+public final class LoadTestApplication {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    record Report(Instant startedAt, String javaVersion, int processors, Map<String, Object> settings,
+                  Map<String, LatencyStats.Summary> operations, LatencyStats.Summary total) {}
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Перезапуск devtools подменил бы контекст посреди прогона
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        LoadTestSettings settings = LoadTestSettings.fromArgs(args);
+
+        log.info("Генерация тестового репозитория: {} коммитов, {} файлов в {}",
+                settings.commits(), settings.files(), settings.repoDir());
+        SyntheticRepository.Generated repository = SyntheticRepository.generate(
+                settings.repoDir(), settings.commits(), settings.files(), settings.seed());
+
+        // Важнее application.properties, но уступают явным аргументам командной строки
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("git.localRepo", repository.dir().toString());
+        overrides.put("server.port", 0);
+        overrides.put("vaadin.launch-browser", false);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .initializers(applicationContext -> {
+                    MutablePropertySources sources = applicationContext.getEnvironment().getPropertySources();
+                    MapPropertySource loadtest = new MapPropertySource("loadtest", overrides);
+                    if (sources.contains(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+                        sources.addAfter(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME, loadtest);
+                    } else {
+                        sources.addFirst(loadtest);
+                    }
+                })
+                .run(args);
+
+        int exitCode = 0;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            EndpointClient client = new EndpointClient(URI.create("http://localhost:" + port), "GitEndpoint");
+            client.connect();
+            Instant startedAt = Instant.now();
+            TrafficDriver driver = new TrafficDriver(client, repository);
+            Map<TrafficDriver.Operation, LatencyStats> stats = driver.run(settings);
+            writeReport(settings, startedAt, stats);
+        } catch (Exception e) {
+            log.error("Нагрузочный прогон прерван", e);
+            exitCode = 1;
+        } finally {
+            SpringApplication.exit(context);
+        }
+        System.exit(exitCode);
+    }
+
+    private static void writeReport(LoadTestSettings settings, Instant startedAt,
+                                    Map<TrafficDriver.Operation, LatencyStats> stats) throws Exception {
+        double seconds = settings.duration().toMillis() / 1000.0;
+        Map<String, LatencyStats.Summary> operations = new LinkedHashMap<>();
+        LatencyStats all = new LatencyStats();
+        stats.forEach((operation, operationStats) -> {
+            operations.put(operation.key(), operationStats.summarize(seconds));
+            operationStats.copyTo(all);
+        });
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("commits", settings.commits());
+        parameters.put("files", settings.files());
+        parameters.put("seed", settings.seed());
+        parameters.put("warmup", settings.warmup().toString());
+        parameters.put("duration", settings.duration().toString());
+        Map<String, Double> rates = new LinkedHashMap<>();
+        settings.rates().forEach((operation, rate) -> rates.put(operation.key(), rate));
+        parameters.put("rates", rates);
+
+        Report report = new Report(startedAt, System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(), parameters, operations, all.summarize(seconds));
+
+        Files.createDirectories(settings.report().getParent());
+        new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(settings.report().toFile(), report);
+
+        operations.forEach((key, summary) -> log.info("{}: {} запросов, {}/с, p50 {} мс, p99 {} мс, ошибок {}, отказов {}",
+                key, summary.requests(), String.format("%.1f", summary.throughput()), summary.p50Millis(),
+                summary.p99Millis(), summary.errors(), summary.rejected()));
+        log.info("Отчёт нагрузочного прогона: {}", settings.report());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.dovakun.loadtest;
+
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного прогона. Читаются из аргументов командной строки вида
+ * {@code --loadtest.duration=PT60S}; остальные аргументы передаются приложению как есть.
+ *
+ * @param rates число запросов в секунду для каждого вида операции
+ */
+record LoadTestSettings(Path repoDir, int commits, int files, long seed,
+                        Duration warmup, Duration duration, Map<TrafficDriver.Operation, Double> rates,
+                        Path report) {
+
+    LoadTestSettings {
+        // Операции diff нужен коммит с родителем, то есть хотя бы два коммита
+        if (commits < 2) {
+            throw new IllegalArgumentException("loadtest.repo.commits должно быть не меньше 2: " + commits);
+        }
+    }
+
+    static LoadTestSettings fromArgs(String[] args) {
+        SimpleCommandLinePropertySource source = new SimpleCommandLinePropertySource(args);
+        Map<TrafficDriver.Operation, Double> rates = new EnumMap<>(TrafficDriver.Operation.class);
+        for (TrafficDriver.Operation operation : TrafficDriver.Operation.values()) {
+            rates.put(operation, Double.parseDouble(
+                    value(source, "loadtest.rate." + operation.key(), String.valueOf(operation.defaultRate()))));
+        }
+        return new LoadTestSettings(
+                Path.of(value(source, "loadtest.repo.dir", "target/loadtest/repo")).toAbsolutePath(),
+                Integer.parseInt(value(source, "loadtest.repo.commits", "500")),
+                Integer.parseInt(value(source, "loadtest.repo.files", "200")),
+                Long.parseLong(value(source, "loadtest.seed", "42")),
+                Duration.parse(value(source, "loadtest.warmup", "PT10S")),
+                Duration.parse(value(source, "loadtest.duration", "PT60S")),
+                rates,
+                Path.of(value(source, "loadtest.report", "target/loadtest/report.json")).toAbsolutePath());
+    }
+
+    private static String value(SimpleCommandLinePropertySource source, String name, String defaultValue) {
+        String value = source.getProperty(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.dovakun.loadtest;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор тестового репозитория: дерево исходников по нескольким каталогам и линейная
+ * история, где каждый коммит правит несколько строк в нескольких файлах. Одинаковый seed
+ * даёт одинаковый репозиторий, поэтому прогоны разных сборок сравнимы.
+ */
+final class SyntheticRepository {
+
+    private static final int LINES_PER_FILE = 120;
+    private static final int DIRECTORIES = 10;
+    private static final String[] WORDS = {
+            "repository", "commit", "branch", "merge", "index", "tree", "blob", "author", "review", "diff",
+            "value", "count", "result", "buffer", "request", "cache", "limit", "offset", "path", "status"};
+
+    record Generated(Path dir, List<String> files, List<String> commits) {}
+
+    private SyntheticRepository() {
+    }
+
+    static Generated generate(Path dir, int commitCount, int fileCount, long seed) throws Exception {
+        FileSystemUtils.deleteRecursively(dir);
+        Files.createDirectories(dir);
+        Random random = new Random(seed);
+
+        List<String> files = new ArrayList<>(fileCount);
+        List<List<String>> contents = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            files.add("src/module" + (i % DIRECTORIES) + "/File" + i + ".java");
+            List<String> lines = new ArrayList<>(LINES_PER_FILE);
+            for (int line = 0; line < LINES_PER_FILE; line++) {
+                lines.add(randomLine(random));
+            }
+            contents.add(lines);
+        }
+
+        List<String> commits = new ArrayList<>(commitCount);
+        long time = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+        try (Git git = Git.init().setDirectory(dir.toFile()).setInitialBranch("master").call()) {
+            for (int i = 0; i < fileCount; i++) {
+                write(dir, files.get(i), contents.get(i));
+            }
+            git.add().addFilepattern(".").call();
+            commits.add(commit(git, "Начальный импорт", time).getName());
+
+            for (int c = 1; c < commitCount; c++) {
+                int changedFiles = 1 + random.nextInt(5);
+                for (int f = 0; f < changedFiles; f++) {
+                    int index = random.nextInt(fileCount);
+                    List<String> lines = contents.get(index);
+                    int edits = 1 + random.nextInt(4);
+                    for (int edit = 0; edit < edits; edit++) {
+                        lines.set(random.nextInt(lines.size()), randomLine(random));
+                    }
+                    write(dir, files.get(index), lines);
+                    git.add().addFilepattern(files.get(index)).call();
+                }
+                time += 3_600_000L;
+                commits.add(commit(git, "Изменение " + c, time).getName());
+            }
+        }
+        return new Generated(dir, List.copyOf(files), List.copyOf(commits));
+    }
+
+    private static RevCommit commit(Git git, String message, long time) throws Exception {
+        PersonIdent author = new PersonIdent("Load Test", "loadtest@example.com",
+                Instant.ofEpochMilli(time), ZoneOffset.UTC);
+        return git.commit().setMessage(message).setAuthor(author).setCommitter(author).call();
+    }
+
+    private static void write(Path dir, String file, List<String> lines) throws IOException {
+        Path path = dir.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder("    ");
+        int words = 3 + random.nextInt(8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                line.append(i % 3 == 0 ? ", " : " ");
+            }
+            line.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return line.append(';').toString();
+    }
+}
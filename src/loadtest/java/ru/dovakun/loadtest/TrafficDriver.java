@@ -0,0 +1,180 @@
+package ru.dovakun.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.dovakun.services.GitOverloadException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Смешанная нагрузка на {@code GitEndpoint} через HTTP. Каждый вид операции запускается с заданной частотой
+ * независимо от того, успели ли завершиться предыдущие запросы (открытая модель): так очередь
+ * на сервере видна в задержках, а не прячется за медленным клиентом. Задержка считается от
+ * запланированного момента старта, каждый запрос выполняется в своём виртуальном потоке.
+ */
+final class TrafficDriver {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficDriver.class);
+
+    enum Operation {
+        LOG("log", 5),
+        DIFF("diff", 20),
+        EDIT("edit", 2),
+        COMMIT("commit", 0.5),
+        ROLLBACK("rollback", 0.5);
+
+        private final String key;
+        private final double defaultRate;
+
+        Operation(String key, double defaultRate) {
+            this.key = key;
+            this.defaultRate = defaultRate;
+        }
+
+        String key() {
+            return key;
+        }
+
+        double defaultRate() {
+            return defaultRate;
+        }
+    }
+
+    private final EndpointClient endpoint;
+    private final SyntheticRepository.Generated repository;
+    private final Map<Operation, LatencyStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLong edits = new AtomicLong();
+
+    TrafficDriver(EndpointClient endpoint, SyntheticRepository.Generated repository) {
+        this.endpoint = endpoint;
+        this.repository = repository;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new LatencyStats());
+        }
+    }
+
+    /**
+     * Прогон: разогрев (результаты отбрасываются), затем измерение; после остановки расписания
+     * дожидается запросов, которые ещё выполняются.
+     */
+    Map<Operation, LatencyStats> run(LoadTestSettings settings) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Thread> schedulers = new ArrayList<>();
+            settings.rates().forEach((operation, rate) -> {
+                if (rate > 0) {
+                    schedulers.add(Thread.ofVirtual().name("loadtest-" + operation.key()).start(
+                            () -> schedule(operation, rate, start, measureFrom, end, requests)));
+                }
+            });
+            for (Thread scheduler : schedulers) {
+                scheduler.join();
+            }
+            requests.shutdown();
+            if (!requests.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Часть запросов не завершилась за минуту после окончания прогона");
+            }
+        }
+        return stats;
+    }
+
+    private void schedule(Operation operation, double rate, long start, long measureFrom, long end,
+                          ExecutorService requests) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        for (long planned = start; planned < end; planned += interval) {
+            long wait = planned - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long plannedStart = planned;
+            boolean measured = planned >= measureFrom;
+            requests.submit(() -> execute(operation, plannedStart, measured));
+        }
+    }
+
+    private void execute(Operation operation, long plannedStart, boolean measured) {
+        try {
+            perform(operation);
+            if (measured) {
+                stats.get(operation).success(System.nanoTime() - plannedStart);
+            }
+        } catch (Exception e) {
+            if (measured) {
+                boolean overload = isOverload(e);
+                stats.get(operation).failure(System.nanoTime() - plannedStart, overload);
+                if (!overload) {
+                    log.debug("Ошибка операции {}", operation.key(), e);
+                }
+            }
+        }
+    }
+
+    private void perform(Operation operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case LOG -> endpoint.call("getAllCommits", Map.of());
+            case DIFF -> {
+                // У корневого коммита нет родителя, и getFileVersions для него всегда падает
+                List<String> commits = repository.commits();
+                String commit = commits.get(1 + random.nextInt(commits.size() - 1));
+                List<String> files = strings(endpoint.call("getChangedFiles", Map.of("commitHash", commit)));
+                if (!files.isEmpty()) {
+                    endpoint.call("getFileVersions", Map.of("commitHash", commit,
+                            "filePath", files.get(random.nextInt(files.size()))));
+                }
+            }
+            case EDIT -> edit(random);
+            case COMMIT -> endpoint.call("createCommit", Map.of("files", dirtyFiles(random),
+                    "commitMessage", "Нагрузочный коммит"));
+            case ROLLBACK -> endpoint.call("rollbackChanges", Map.of("files", dirtyFiles(random)));
+        }
+    }
+
+    private void edit(ThreadLocalRandom random) throws Exception {
+        String file = repository.files().get(random.nextInt(repository.files().size()));
+        String content = endpoint.call("getFileContent", Map.of("commitHash", "HEAD", "filePath", file)).asText();
+        endpoint.call("updateFileContent", Map.of("filePath", file,
+                "content", content + "    // правка " + edits.incrementAndGet() + "\n"));
+    }
+
+    /**
+     * Незакоммиченные файлы; если их нет, сначала правит один файл, как сделал бы пользователь.
+     */
+    private List<String> dirtyFiles(ThreadLocalRandom random) throws Exception {
+        List<String> files = strings(endpoint.call("getUncommittedChanges", Map.of()));
+        if (files.isEmpty()) {
+            edit(random);
+            files = strings(endpoint.call("getUncommittedChanges", Map.of()));
+        }
+        return files;
+    }
+
+    private static List<String> strings(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        if (array != null) {
+            array.forEach(value -> values.add(value.asText()));
+        }
+        return values;
+    }
+
+    /**
+     * Отказ ограничителя приходит как ошибка эндпоинта с типом {@link GitOverloadException}.
+     */
+    private static boolean isOverload(Throwable e) {
+        return e instanceof EndpointClient.CallException call
+                && GitOverloadException.class.getName().equals(call.type());
+    }
+}
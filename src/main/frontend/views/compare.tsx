@@ -0,0 +1,123 @@
+import {ViewConfig} from "@vaadin/hilla-file-router/types.js";
+import {ReactNode, useEffect, useState} from "react";
+import {Button, Grid, GridColumn, TextField} from "@vaadin/react-components";
+import {GitEndpoint} from "Frontend/generated/endpoints";
+
+type ChangesBatch = Parameters<Parameters<ReturnType<typeof GitEndpoint.getRangeChanges>["onNext"]>[0]>[0];
+type ChangedPath = ChangesBatch[number];
+type FileDiff = Awaited<ReturnType<typeof GitEndpoint.getRangeFileDiff>>;
+type DiffLine = NonNullable<NonNullable<NonNullable<FileDiff["hunks"]>[number]>["lines"]>[number];
+
+export const config: ViewConfig = {
+    menu: {
+        order: 2,
+        icon: 'line-awesome/svg/exchange-alt-solid.svg'
+    },
+    title: 'Сравнение',
+    rolesAllowed: ['ADMIN'],
+};
+
+const lineStyles: Record<string, { background: string; mark: string; prefix: string }> = {
+    ADDED: {background: "#e6ffec", mark: "#abf2bc", prefix: "+"},
+    REMOVED: {background: "#ffebe9", mark: "#ffc1c0", prefix: "-"},
+    CONTEXT: {background: "transparent", mark: "transparent", prefix: " "},
+};
+
+// Подсветка изменённых участков строки посчитана на сервере: здесь текст только режется по готовым границам
+function renderText(line: DiffLine): ReactNode {
+    const text = line?.text ?? "";
+    const highlights = (line?.highlights ?? []).filter((h): h is NonNullable<typeof h> => h !== undefined);
+    if (highlights.length === 0) {
+        return text;
+    }
+    const style = lineStyles[line?.type ?? "CONTEXT"];
+    const parts: ReactNode[] = [];
+    let position = 0;
+    highlights.forEach((highlight, index) => {
+        if (highlight.start > position) {
+            parts.push(text.slice(position, highlight.start));
+        }
+        parts.push(<span key={index} style={{background: style.mark}}>{text.slice(highlight.start, highlight.end)}</span>);
+        position = highlight.end;
+    });
+    parts.push(text.slice(position));
+    return parts;
+}
+
+export default function CompareView() {
+    const [from, setFrom] = useState<string>("HEAD~1");
+    const [to, setTo] = useState<string>("HEAD");
+    const [range, setRange] = useState<{ from: string; to: string } | null>(null);
+    const [changes, setChanges] = useState<ChangedPath[]>([]);
+    const [selectedPath, setSelectedPath] = useState<string | null>(null);
+    const [fileDiff, setFileDiff] = useState<FileDiff | null>(null);
+
+    useEffect(() => {
+        if (!range) return;
+        setChanges([]);
+        setSelectedPath(null);
+        setFileDiff(null);
+        // Пути приходят пачками; при смене диапазона подписка отменяется и сервер прекращает обход
+        const subscription = GitEndpoint.getRangeChanges(range.from, range.to)
+            .onNext(batch => setChanges(current => [...current, ...batch]))
+            .onError(() => console.error("Ошибка загрузки изменённых путей"));
+        return () => subscription.cancel();
+    }, [range]);
+
+    useEffect(() => {
+        if (!range || !selectedPath) return;
+        GitEndpoint.getRangeFileDiff(range.from, range.to, selectedPath)
+            .then(setFileDiff)
+            .catch((error: any) => console.error("Ошибка загрузки diff:", error));
+    }, [range, selectedPath]);
+
+    return (
+        <div className="h-full w-full p-m flex flex-col gap-m">
+            <div className="flex gap-m items-end">
+                <TextField label="Откуда" value={from} onChange={(e) => setFrom(e.target.value)}/>
+                <TextField label="Куда" value={to} onChange={(e) => setTo(e.target.value)}/>
+                <Button theme="primary" onClick={() => setRange({from, to})}>Сравнить</Button>
+            </div>
+            <div className="grid grid-cols-12 gap-4 h-full" style={{minHeight: 0}}>
+                <div className="col-span-4 bg-white shadow-md rounded-md p-m">
+                    <Grid
+                        className="h-full"
+                        items={changes}
+                        theme="row-stripes"
+                        onActiveItemChanged={(e) => {
+                            const grid = e.target as any;
+                            grid.activeItem = e.detail.value;
+                            setSelectedPath(e.detail.value?.path ?? null);
+                        }}
+                    >
+                        <GridColumn header="Файл" renderer={({item}) => <div>{item.path}</div>}/>
+                        <GridColumn header="Изменение" autoWidth renderer={({item}) => (
+                            <span className="text-sm text-gray-500">{item.changeType}</span>
+                        )}/>
+                    </Grid>
+                </div>
+                <div className="col-span-8 bg-white shadow-md rounded-md p-m" style={{overflow: "auto"}}>
+                    <div className="text-xl font-semibold mb-2">
+                        {selectedPath ? `Файл: ${selectedPath}` : "Файл не выбран"}
+                    </div>
+                    {fileDiff?.binary && <div>Двоичный файл</div>}
+                    {(fileDiff?.hunks ?? []).map((hunk, hunkIndex) => (
+                        <pre key={hunkIndex} style={{margin: "0 0 1em 0", fontSize: 14}}>
+                            <div className="text-gray-500">
+                                {`@@ -${hunk?.oldStart},${hunk?.oldCount} +${hunk?.newStart},${hunk?.newCount} @@`}
+                            </div>
+                            {(hunk?.lines ?? []).map((line, lineIndex) => {
+                                const style = lineStyles[line?.type ?? "CONTEXT"];
+                                return (
+                                    <div key={lineIndex} style={{background: style.background}}>
+                                        {style.prefix}{renderText(line)}
+                                    </div>
+                                );
+                            })}
+                        </pre>
+                    ))}
+                </div>
+            </div>
+        </div>
+    );
+}
@@ -0,0 +1,63 @@
+import {ViewConfig} from "@vaadin/hilla-file-router/types.js";
+import {useEffect, useState} from "react";
+import {Grid, GridColumn, TextField} from "@vaadin/react-components";
+import {GitEndpoint} from "Frontend/generated/endpoints";
+
+type RefComparison = Awaited<ReturnType<typeof GitEndpoint.getRefs>>[number];
+
+export const config: ViewConfig = {
+    menu: {
+        order: 1,
+        icon: 'line-awesome/svg/code-branch-solid.svg'
+    },
+    title: 'Ветки',
+    rolesAllowed: ['ADMIN'],
+};
+
+function formatCount(value: number | undefined, truncated: boolean): string {
+    if (value === undefined || value === null) {
+        return "";
+    }
+    return truncated ? `${value}+` : `${value}`;
+}
+
+export default function RefsView() {
+    const [base, setBase] = useState<string>("HEAD");
+    const [refs, setRefs] = useState<RefComparison[]>([]);
+
+    useEffect(() => {
+        GitEndpoint.getRefs(base)
+            .then(setRefs)
+            .catch((error: any) => console.error("Ошибка загрузки веток:", error));
+    }, [base]);
+
+    return (
+        <div className="h-full w-full p-m flex flex-col gap-m">
+            <TextField
+                label="База для сравнения"
+                value={base}
+                onChange={(e) => setBase(e.target.value || "HEAD")}
+            />
+            <Grid className="h-full" items={refs} theme="row-stripes">
+                <GridColumn header="Ссылка" renderer={({item}) => (
+                    <div>
+                        <div>{item.ref.shortName}</div>
+                        <div className="text-sm text-gray-500">{item.ref.type}</div>
+                    </div>
+                )}/>
+                <GridColumn header="Впереди" autoWidth renderer={({item}) => (
+                    <span>{formatCount(item.ahead, item.aheadTruncated)}</span>
+                )}/>
+                <GridColumn header="Позади" autoWidth renderer={({item}) => (
+                    <span>{formatCount(item.behind, item.behindTruncated)}</span>
+                )}/>
+                <GridColumn header="Последний коммит" renderer={({item}) => (
+                    <div>
+                        <div>{item.ref.message}</div>
+                        <div className="text-sm text-gray-500">{item.ref.date}</div>
+                    </div>
+                )}/>
+            </Grid>
+        </div>
+    );
+}
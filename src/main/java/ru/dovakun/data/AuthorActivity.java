@@ -0,0 +1,7 @@
+package ru.dovakun.data;
+
+import java.time.LocalDate;
+
+public record AuthorActivity(String authorEmail, String authorName, long commits, long linesAdded,
+        long linesDeleted, LocalDate firstCommit, LocalDate lastCommit) {
+}
@@ -0,0 +1,78 @@
+package ru.dovakun.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Активность одного автора за календарный месяц. Обновляется вместе с {@link CommitStats}.
+ */
+@Entity
+@Table(name = "author_activity_monthly", indexes = {
+        @Index(name = "idx_author_activity_monthly_key", columnList = "authorEmail, monthStart", unique = true),
+        @Index(name = "idx_author_activity_monthly_month", columnList = "monthStart")})
+public class AuthorActivityMonthly extends AbstractEntity {
+
+    @Column(nullable = false)
+    private String authorEmail;
+    @Column(nullable = false)
+    private LocalDate monthStart;
+    private String authorName;
+    private long commits;
+    private long linesAdded;
+    private long linesDeleted;
+    private LocalDate firstCommit;
+    private LocalDate lastCommit;
+
+    public String getAuthorEmail() {
+        return authorEmail;
+    }
+    public void setAuthorEmail(String authorEmail) {
+        this.authorEmail = authorEmail;
+    }
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+    public void setMonthStart(LocalDate monthStart) {
+        this.monthStart = monthStart;
+    }
+    public String getAuthorName() {
+        return authorName;
+    }
+    public void setAuthorName(String authorName) {
+        this.authorName = authorName;
+    }
+    public long getCommits() {
+        return commits;
+    }
+    public void setCommits(long commits) {
+        this.commits = commits;
+    }
+    public long getLinesAdded() {
+        return linesAdded;
+    }
+    public void setLinesAdded(long linesAdded) {
+        this.linesAdded = linesAdded;
+    }
+    public long getLinesDeleted() {
+        return linesDeleted;
+    }
+    public void setLinesDeleted(long linesDeleted) {
+        this.linesDeleted = linesDeleted;
+    }
+    public LocalDate getFirstCommit() {
+        return firstCommit;
+    }
+    public void setFirstCommit(LocalDate firstCommit) {
+        this.firstCommit = firstCommit;
+    }
+    public LocalDate getLastCommit() {
+        return lastCommit;
+    }
+    public void setLastCommit(LocalDate lastCommit) {
+        this.lastCommit = lastCommit;
+    }
+
+}
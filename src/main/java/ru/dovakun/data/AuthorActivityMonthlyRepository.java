@@ -0,0 +1,20 @@
+package ru.dovakun.data;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface AuthorActivityMonthlyRepository extends JpaRepository<AuthorActivityMonthly, Long> {
+
+    List<AuthorActivityMonthly> findByMonthStartInAndAuthorEmailIn(Collection<LocalDate> months,
+            Collection<String> authorEmails);
+
+    @Query("select new ru.dovakun.data.AuthorActivity(m.authorEmail, max(m.authorName), sum(m.commits), "
+            + "sum(m.linesAdded), sum(m.linesDeleted), min(m.firstCommit), max(m.lastCommit)) "
+            + "from AuthorActivityMonthly m where m.monthStart >= :from group by m.authorEmail "
+            + "order by sum(m.commits) desc")
+    List<AuthorActivity> findAuthorActivity(LocalDate from, Pageable pageable);
+}
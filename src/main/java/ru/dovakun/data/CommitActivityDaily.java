@@ -0,0 +1,48 @@
+package ru.dovakun.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Число коммитов и изменённых строк за один день. Обновляется вместе с {@link CommitStats}.
+ */
+@Entity
+@Table(name = "commit_activity_daily", indexes = {
+        @Index(name = "idx_commit_activity_daily_day", columnList = "commitDay", unique = true)})
+public class CommitActivityDaily extends AbstractEntity {
+
+    @Column(nullable = false)
+    private LocalDate commitDay;
+    private long commits;
+    private long linesAdded;
+    private long linesDeleted;
+
+    public LocalDate getCommitDay() {
+        return commitDay;
+    }
+    public void setCommitDay(LocalDate commitDay) {
+        this.commitDay = commitDay;
+    }
+    public long getCommits() {
+        return commits;
+    }
+    public void setCommits(long commits) {
+        this.commits = commits;
+    }
+    public long getLinesAdded() {
+        return linesAdded;
+    }
+    public void setLinesAdded(long linesAdded) {
+        this.linesAdded = linesAdded;
+    }
+    public long getLinesDeleted() {
+        return linesDeleted;
+    }
+    public void setLinesDeleted(long linesDeleted) {
+        this.linesDeleted = linesDeleted;
+    }
+
+}
@@ -0,0 +1,16 @@
+package ru.dovakun.data;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CommitActivityDailyRepository extends JpaRepository<CommitActivityDaily, Long> {
+
+    List<CommitActivityDaily> findByCommitDayIn(Collection<LocalDate> days);
+
+    @Query("select new ru.dovakun.data.DailyActivity(d.commitDay, d.commits, d.linesAdded, d.linesDeleted) "
+            + "from CommitActivityDaily d where d.commitDay >= :from order by d.commitDay")
+    List<DailyActivity> findDailyActivity(LocalDate from);
+}
@@ -0,0 +1,70 @@
+package ru.dovakun.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Предвычисленная статистика одного коммита для аналитики истории.
+ */
+@Entity
+@Table(name = "commit_stats", indexes = {
+        @Index(name = "idx_commit_stats_commit", columnList = "commitId", unique = true),
+        @Index(name = "idx_commit_stats_date", columnList = "commitDate")})
+public class CommitStats extends AbstractEntity {
+
+    @Column(length = 40, nullable = false)
+    private String commitId;
+    private String authorName;
+    private String authorEmail;
+    private LocalDate commitDate;
+    private int filesChanged;
+    private int linesAdded;
+    private int linesDeleted;
+
+    public String getCommitId() {
+        return commitId;
+    }
+    public void setCommitId(String commitId) {
+        this.commitId = commitId;
+    }
+    public String getAuthorName() {
+        return authorName;
+    }
+    public void setAuthorName(String authorName) {
+        this.authorName = authorName;
+    }
+    public String getAuthorEmail() {
+        return authorEmail;
+    }
+    public void setAuthorEmail(String authorEmail) {
+        this.authorEmail = authorEmail;
+    }
+    public LocalDate getCommitDate() {
+        return commitDate;
+    }
+    public void setCommitDate(LocalDate commitDate) {
+        this.commitDate = commitDate;
+    }
+    public int getFilesChanged() {
+        return filesChanged;
+    }
+    public void setFilesChanged(int filesChanged) {
+        this.filesChanged = filesChanged;
+    }
+    public int getLinesAdded() {
+        return linesAdded;
+    }
+    public void setLinesAdded(int linesAdded) {
+        this.linesAdded = linesAdded;
+    }
+    public int getLinesDeleted() {
+        return linesDeleted;
+    }
+    public void setLinesDeleted(int linesDeleted) {
+        this.linesDeleted = linesDeleted;
+    }
+
+}
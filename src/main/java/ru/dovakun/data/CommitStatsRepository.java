@@ -0,0 +1,31 @@
+package ru.dovakun.data;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CommitStatsRepository extends JpaRepository<CommitStats, Long> {
+
+    @Query("select c.commitId from CommitStats c where c.commitId in :commitIds")
+    List<String> findExistingCommitIds(Collection<String> commitIds);
+
+    @Query("select c.commitId from CommitStats c")
+    List<String> findAllCommitIds();
+
+    @Modifying
+    @Query("delete from CommitStats c where c.commitId in :commitIds")
+    int deleteByCommitIdIn(Collection<String> commitIds);
+
+    List<CommitStats> findByCommitIdIn(Collection<String> commitIds);
+
+    @Query("select min(c.commitDate) from CommitStats c "
+            + "where c.authorEmail = :authorEmail and c.commitDate >= :from and c.commitDate < :to")
+    LocalDate findFirstCommitDate(String authorEmail, LocalDate from, LocalDate to);
+
+    @Query("select max(c.commitDate) from CommitStats c "
+            + "where c.authorEmail = :authorEmail and c.commitDate >= :from and c.commitDate < :to")
+    LocalDate findLastCommitDate(String authorEmail, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,6 @@
+package ru.dovakun.data;
+
+import java.time.LocalDate;
+
+public record DailyActivity(LocalDate day, long commits, long linesAdded, long linesDeleted) {
+}
@@ -0,0 +1,64 @@
+package ru.dovakun.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Изменение одного файла в одном коммите: сколько строк добавлено и удалено.
+ */
+@Entity
+@Table(name = "file_churn", indexes = {
+        @Index(name = "idx_file_churn_path", columnList = "path"),
+        @Index(name = "idx_file_churn_date", columnList = "commitDate")})
+public class FileChurn extends AbstractEntity {
+
+    @Column(length = 40, nullable = false)
+    private String commitId;
+    @Column(length = 4096, nullable = false)
+    private String path;
+    private String authorEmail;
+    private LocalDate commitDate;
+    private int linesAdded;
+    private int linesDeleted;
+
+    public String getCommitId() {
+        return commitId;
+    }
+    public void setCommitId(String commitId) {
+        this.commitId = commitId;
+    }
+    public String getPath() {
+        return path;
+    }
+    public void setPath(String path) {
+        this.path = path;
+    }
+    public String getAuthorEmail() {
+        return authorEmail;
+    }
+    public void setAuthorEmail(String authorEmail) {
+        this.authorEmail = authorEmail;
+    }
+    public LocalDate getCommitDate() {
+        return commitDate;
+    }
+    public void setCommitDate(LocalDate commitDate) {
+        this.commitDate = commitDate;
+    }
+    public int getLinesAdded() {
+        return linesAdded;
+    }
+    public void setLinesAdded(int linesAdded) {
+        this.linesAdded = linesAdded;
+    }
+    public int getLinesDeleted() {
+        return linesDeleted;
+    }
+    public void setLinesDeleted(int linesDeleted) {
+        this.linesDeleted = linesDeleted;
+    }
+
+}
@@ -0,0 +1,58 @@
+package ru.dovakun.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Сумма изменений одного файла за календарный месяц. Обновляется вместе с {@link FileChurn},
+ * чтобы дашборд не группировал построчные данные за всю историю.
+ */
+@Entity
+@Table(name = "file_churn_monthly", indexes = {
+        @Index(name = "idx_file_churn_monthly_key", columnList = "path, monthStart", unique = true),
+        @Index(name = "idx_file_churn_monthly_month", columnList = "monthStart")})
+public class FileChurnMonthly extends AbstractEntity {
+
+    @Column(length = 4096, nullable = false)
+    private String path;
+    @Column(nullable = false)
+    private LocalDate monthStart;
+    private long commits;
+    private long linesAdded;
+    private long linesDeleted;
+
+    public String getPath() {
+        return path;
+    }
+    public void setPath(String path) {
+        this.path = path;
+    }
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+    public void setMonthStart(LocalDate monthStart) {
+        this.monthStart = monthStart;
+    }
+    public long getCommits() {
+        return commits;
+    }
+    public void setCommits(long commits) {
+        this.commits = commits;
+    }
+    public long getLinesAdded() {
+        return linesAdded;
+    }
+    public void setLinesAdded(long linesAdded) {
+        this.linesAdded = linesAdded;
+    }
+    public long getLinesDeleted() {
+        return linesDeleted;
+    }
+    public void setLinesDeleted(long linesDeleted) {
+        this.linesDeleted = linesDeleted;
+    }
+
+}
@@ -0,0 +1,18 @@
+package ru.dovakun.data;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface FileChurnMonthlyRepository extends JpaRepository<FileChurnMonthly, Long> {
+
+    List<FileChurnMonthly> findByMonthStartInAndPathIn(Collection<LocalDate> months, Collection<String> paths);
+
+    @Query("select new ru.dovakun.data.FileHotspot(m.path, sum(m.commits), sum(m.linesAdded), sum(m.linesDeleted)) "
+            + "from FileChurnMonthly m where m.monthStart >= :from group by m.path "
+            + "order by sum(m.linesAdded) + sum(m.linesDeleted) desc")
+    List<FileHotspot> findHotspots(LocalDate from, Pageable pageable);
+}
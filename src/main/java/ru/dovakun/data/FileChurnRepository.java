@@ -0,0 +1,16 @@
+package ru.dovakun.data;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface FileChurnRepository extends JpaRepository<FileChurn, Long> {
+
+    List<FileChurn> findByCommitIdIn(Collection<String> commitIds);
+
+    @Modifying
+    @Query("delete from FileChurn f where f.commitId in :commitIds")
+    int deleteByCommitIdIn(Collection<String> commitIds);
+}
@@ -0,0 +1,4 @@
+package ru.dovakun.data;
+
+public record FileHotspot(String path, long commits, long linesAdded, long linesDeleted) {
+}
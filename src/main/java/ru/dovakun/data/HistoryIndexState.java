@@ -0,0 +1,32 @@
+package ru.dovakun.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * До какого HEAD репозитория уже построена аналитика истории.
+ */
+@Entity
+@Table(name = "history_index_state")
+public class HistoryIndexState extends AbstractEntity {
+
+    @Column(length = 1024, nullable = false, unique = true)
+    private String repo;
+    @Column(length = 40)
+    private String headId;
+
+    public String getRepo() {
+        return repo;
+    }
+    public void setRepo(String repo) {
+        this.repo = repo;
+    }
+    public String getHeadId() {
+        return headId;
+    }
+    public void setHeadId(String headId) {
+        this.headId = headId;
+    }
+
+}
@@ -0,0 +1,9 @@
+package ru.dovakun.data;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface HistoryIndexStateRepository extends JpaRepository<HistoryIndexState, Long> {
+
+    Optional<HistoryIndexState> findByRepo(String repo);
+}
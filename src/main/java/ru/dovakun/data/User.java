@@ -1,6 +1,7 @@
 package ru.dovakun.data;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
@@ -22,7 +23,9 @@ public class User extends AbstractEntity {
     @Enumerated(EnumType.STRING)
     @ElementCollection(fetch = FetchType.EAGER)
     private Set<Role> roles;
+    @JsonIgnore
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(length = 1000000)
     private byte[] profilePicture;
 
@@ -0,0 +1,18 @@
+package ru.dovakun.data;
+
+import java.util.Set;
+
+/**
+ * Неизменяемые сведения о пользователе без пароля и изображения профиля: их безопасно
+ * хранить в кэше и отдавать нескольким запросам одновременно.
+ */
+public record UserInfo(Long id, int version, String username, String name, Set<Role> roles) {
+
+    public UserInfo {
+        roles = roles != null ? Set.copyOf(roles) : Set.of();
+    }
+
+    public static UserInfo of(User user) {
+        return new UserInfo(user.getId(), user.getVersion(), user.getUsername(), user.getName(), user.getRoles());
+    }
+}
@@ -3,8 +3,12 @@ package ru.dovakun.data;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
 
     Optional<User> findByUsername(String username);
+
+    @Query("select u.profilePicture from User u where u.id = :id")
+    Optional<byte[]> findProfilePictureById(Long id);
 }
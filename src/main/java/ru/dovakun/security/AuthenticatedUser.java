@@ -4,25 +4,23 @@ import com.vaadin.flow.spring.security.AuthenticationContext;
 import java.util.Optional;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import ru.dovakun.data.User;
-import ru.dovakun.data.UserRepository;
+import ru.dovakun.data.UserInfo;
 
 @Component
 public class AuthenticatedUser {
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final AuthenticationContext authenticationContext;
 
-    public AuthenticatedUser(AuthenticationContext authenticationContext, UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public AuthenticatedUser(AuthenticationContext authenticationContext, UserCache userCache) {
+        this.userCache = userCache;
         this.authenticationContext = authenticationContext;
     }
 
-    @Transactional
-    public Optional<User> get() {
+    public Optional<UserInfo> get() {
         return authenticationContext.getAuthenticatedUser(UserDetails.class)
-                .flatMap(userDetails -> userRepository.findByUsername(userDetails.getUsername()));
+                .flatMap(userDetails -> userCache.get(userDetails.getUsername()))
+                .map(UserCache.CachedUser::user);
     }
 
     public void logout() {
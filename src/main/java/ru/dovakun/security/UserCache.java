@@ -0,0 +1,72 @@
+package ru.dovakun.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.dovakun.data.User;
+import ru.dovakun.data.UserInfo;
+import ru.dovakun.data.UserRepository;
+
+/**
+ * Ограниченный кэш пользователей и их прав для пути аутентификации, чтобы не обращаться к БД
+ * на каждый запрос. Изображение профиля сюда не попадает: оно загружается лениво и отдаётся
+ * отдельным запросом.
+ *
+ * <p>Транзакция открывается только при промахе, внутри загрузчика; попадание в кэш не берёт
+ * соединение из пула. Хранятся неизменяемые копии, а не JPA-сущности, потому что одну запись
+ * читают несколько запросов одновременно.
+ */
+@Component
+public class UserCache {
+
+    public record CachedUser(UserInfo user, String hashedPassword, List<GrantedAuthority> authorities) {
+
+        public CachedUser {
+            authorities = List.copyOf(authorities);
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, CachedUser> users;
+
+    public UserCache(UserRepository userRepository, PlatformTransactionManager transactionManager,
+            @Value("${users.cache.maxSize:1000}") long maxSize, @Value("${users.cache.ttl:PT10M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.users = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    public Optional<CachedUser> get(String username) {
+        // Отсутствующих пользователей не кэшируем (загрузчик вернёт null), чтобы новый пользователь был виден сразу
+        return Optional.ofNullable(users.get(username, this::load));
+    }
+
+    public void evict(String username) {
+        users.invalidate(username);
+    }
+
+    public void evictAll() {
+        users.invalidateAll();
+    }
+
+    private CachedUser load(String username) {
+        return readOnlyTransaction.execute(status -> userRepository.findByUsername(username)
+                .map(user -> new CachedUser(UserInfo.of(user), user.getHashedPassword(), getAuthorities(user)))
+                .orElse(null));
+    }
+
+    private static List<GrantedAuthority> getAuthorities(User user) {
+        return user.getRoles().stream().<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+}
@@ -1,39 +1,25 @@
 package ru.dovakun.security;
 
-import java.util.List;
-import java.util.stream.Collectors;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import ru.dovakun.data.User;
-import ru.dovakun.data.UserRepository;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserDetailsServiceImpl(UserCache userCache) {
+        this.userCache = userCache;
     }
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserCache.CachedUser cached = userCache.get(username)
                 .orElseThrow(() -> new UsernameNotFoundException("No user present with username: " + username));
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getHashedPassword(),
-                getAuthorities(user));
-    }
-
-    private static List<GrantedAuthority> getAuthorities(User user) {
-        return user.getRoles().stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                .collect(Collectors.toList());
-
+        return new org.springframework.security.core.userdetails.User(cached.user().username(),
+                cached.hashedPassword(), cached.authorities());
     }
 
 }
@@ -0,0 +1,39 @@
+package ru.dovakun.services;
+
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+
+/**
+ * Монитор JGit с крайним сроком выполнения и ручной отменой. Команды JGit и наши циклы обхода
+ * проверяют {@link #isCancelled()} и прекращают работу, когда клиент ушёл или время вышло.
+ */
+public class CancellableProgressMonitor extends EmptyProgressMonitor {
+
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    public CancellableProgressMonitor(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static CancellableProgressMonitor unbounded() {
+        return new CancellableProgressMonitor(Long.MAX_VALUE);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled || (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0);
+    }
+
+    /**
+     * Прерывает операцию, если она отменена или вышло время.
+     */
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new GitOverloadException(cancelled ? "Операция отменена" : "Операция превысила отведённое время");
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package ru.dovakun.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revplot.PlotCommit;
+import org.eclipse.jgit.revplot.PlotCommitList;
+import org.eclipse.jgit.revplot.PlotLane;
+import org.eclipse.jgit.revplot.PlotWalk;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Раскладка графа коммитов по дорожкам (lanes) на сервере на основе {@link PlotWalk}.
+ * Граф считается окнами: для каждого набора вершин веток держится сессия с открытым обходом,
+ * которая дозаполняется по мере прокрутки, поэтому следующее окно не пересчитывает предыдущие.
+ *
+ * <p>Сквозные дорожки строки и дорожка родителя становятся известны, только когда загружен
+ * родитель, к которому идёт ребро. Поэтому окно считается с запасом {@code lookahead} коммитов
+ * и дозаполняется, пока не загружены родители всех коммитов до конца окна, но не дальше
+ * {@code git.graph.maxLookahead}. Строки, для которых это не удалось (очень длинная ветка),
+ * отдаются с {@code complete = false}, и клиент должен запросить их повторно позже.
+ *
+ * <p>{@link PlotWalk} всегда сортирует топологически, а топологическая сортировка JGit читает
+ * всю достижимую историю при первом же {@code next()}. Поэтому первое окно новой сессии стоит
+ * O(история), дальше окна дешёвые. Этот начальный обход проверяет монитор на каждом коммите
+ * через фильтр обхода; прерванная сессия выбрасывается, и следующий запрос начинает заново.
+ *
+ * <p>Сессия привязана к {@code graphId} — набору вершин веток. Когда ветки сдвигаются, клиент
+ * продолжает листать свою сессию с прежней позиции и получает {@code outdated = true}; новая
+ * раскладка строится, только когда клиент сам запросит окно без {@code graphId} или его сессия
+ * истекла. Так коммит в любую ветку не сбрасывает всех клиентов и не запускает новые обходы.
+ */
+@Service
+public class CommitGraphService {
+
+    private static final int MAX_WINDOW = 500;
+    private static final int FILL_STEP = 1000;
+
+    public record GraphRow(int index, String commitHash, String message, String author, String date, int lane,
+                           List<String> parents, List<Integer> parentLanes, List<Integer> passingLanes,
+                           boolean complete) {}
+
+    /**
+     * @param complete все строки окна окончательные; иначе часть строк надо запросить повторно
+     * @param outdated ветки сдвинулись после начала сессии; свежая раскладка — запрос без {@code graphId}
+     */
+    public record GraphWindow(String graphId, int offset, int nextOffset, boolean hasMore, boolean complete,
+                              boolean outdated, List<GraphRow> rows) {}
+
+    private static final class GraphSession {
+
+        private final PlotWalk walk;
+        private final PlotCommitList<PlotLane> commits = new PlotCommitList<>();
+        // Не synchronized: ввод-вывод под монитором объекта закрепил бы виртуальный поток за носителем
+        private final ReentrantLock lock = new ReentrantLock();
+        // Монитор запроса, который сейчас заполняет список; его проверяет фильтр обхода
+        private CancellableProgressMonitor activeMonitor = CancellableProgressMonitor.unbounded();
+        private boolean broken;
+        private boolean exhausted;
+        // Число первых коммитов, у которых все родители уже загружены: их строки окончательные
+        private int settled;
+
+        private GraphSession(Repository repository, List<ObjectId> tips) throws IOException {
+            walk = new PlotWalk(repository);
+            walk.sort(RevSort.TOPO, true);
+            walk.sort(RevSort.COMMIT_TIME_DESC, true);
+            walk.setRevFilter(new CancellationFilter());
+            for (ObjectId tip : tips) {
+                walk.markStart(walk.parseCommit(tip));
+            }
+            commits.source(walk);
+        }
+
+        private List<GraphRow> window(int offset, int limit, int lookahead, int maxLookahead,
+                                      CancellableProgressMonitor monitor) throws IOException {
+            lock.lock();
+            try {
+                return windowLocked(offset, limit, lookahead, maxLookahead, monitor);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<GraphRow> windowLocked(int offset, int limit, int lookahead, int maxLookahead,
+                                            CancellableProgressMonitor monitor) throws IOException {
+            if (broken) {
+                throw new GitOverloadException("Построение графа прервано, запросите граф заново");
+            }
+            int target = offset + limit + lookahead;
+            fill(target, monitor);
+            int end = Math.min(commits.size(), offset + limit);
+            int cap = end + maxLookahead;
+            while (advanceSettled() < end && !exhausted && target < cap) {
+                target = Math.min(cap, target + Math.max(lookahead, target - offset));
+                fill(target, monitor);
+            }
+            List<GraphRow> rows = new ArrayList<>(Math.max(0, end - offset));
+            List<PlotLane> passing = new ArrayList<>();
+            for (int i = offset; i < end; i++) {
+                PlotCommit<PlotLane> commit = commits.get(i);
+                List<String> parents = new ArrayList<>(commit.getParentCount());
+                List<Integer> parentLanes = new ArrayList<>(commit.getParentCount());
+                for (int p = 0; p < commit.getParentCount(); p++) {
+                    PlotCommit<?> parent = (PlotCommit<?>) commit.getParent(p);
+                    parents.add(parent.getName());
+                    parentLanes.add(parent.getLane() != null ? parent.getLane().getPosition() : -1);
+                }
+                passing.clear();
+                commits.findPassingThrough(commit, passing);
+                List<Integer> passingLanes = passing.stream().map(PlotLane::getPosition).toList();
+                rows.add(new GraphRow(i, commit.getName(), commit.getShortMessage(),
+                        commit.getAuthorIdent().getName(), commit.getAuthorIdent().getWhenAsInstant().toString(),
+                        commit.getLane().getPosition(), parents, parentLanes, passingLanes, i < settled));
+            }
+            return rows;
+        }
+
+        /**
+         * Дозаполняет список шагами по {@value #FILL_STEP}, проверяя монитор между шагами.
+         * Прерывание между шагами не теряет работу: следующий запрос продолжит с того же места.
+         * Прерывание внутри {@code fillTo} (начальный обход истории) оставляет обход
+         * в неопределённом состоянии, и сессия помечается сломанной.
+         */
+        private void fill(int target, CancellableProgressMonitor monitor) throws IOException {
+            while (!exhausted && commits.size() < target) {
+                int step = Math.min(target, commits.size() + FILL_STEP);
+                activeMonitor = monitor;
+                try {
+                    commits.fillTo(step);
+                } catch (IOException | RuntimeException e) {
+                    broken = true;
+                    throw e;
+                } finally {
+                    activeMonitor = CancellableProgressMonitor.unbounded();
+                }
+                exhausted = commits.size() < step;
+                monitor.checkCancelled();
+            }
+        }
+
+        /**
+         * Сдвигает границу окончательных строк. Родитель получает дорожку, когда входит в список,
+         * и больше её не теряет, поэтому граница только растёт.
+         */
+        private int advanceSettled() {
+            while (settled < commits.size() && parentsEntered(commits.get(settled))) {
+                settled++;
+            }
+            return settled;
+        }
+
+        private static boolean parentsEntered(PlotCommit<PlotLane> commit) {
+            for (int p = 0; p < commit.getParentCount(); p++) {
+                if (((PlotCommit<?>) commit.getParent(p)).getLane() == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSettled(int end) {
+            lock.lock();
+            try {
+                return advanceSettled() >= end;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hasMore(int offset) {
+            lock.lock();
+            try {
+                return offset < commits.size() || !exhausted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isBroken() {
+            lock.lock();
+            try {
+                return broken;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                walk.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Пропускает все коммиты, но проверяет монитор текущего запроса: через фильтр проходит
+         * каждый коммит начального обхода, который иначе не прервать.
+         */
+        private final class CancellationFilter extends RevFilter {
+
+            @Override
+            public boolean include(RevWalk walker, RevCommit commit) {
+                activeMonitor.checkCancelled();
+                return true;
+            }
+
+            @Override
+            public RevFilter clone() {
+                return this;
+            }
+
+            @Override
+            public boolean requiresCommitBody() {
+                return false;
+            }
+        }
+    }
+
+    private final GitService gitService;
+    private final int lookahead;
+    private final int maxLookahead;
+    private final Cache<String, GraphSession> sessions;
+
+    public CommitGraphService(GitService gitService, @Value("${git.graph.lookahead:200}") int lookahead,
+                              @Value("${git.graph.maxLookahead:5000}") int maxLookahead,
+                              @Value("${git.graph.sessions:8}") long maxSessions) {
+        this.gitService = gitService;
+        this.lookahead = lookahead;
+        this.maxLookahead = maxLookahead;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .<String, GraphSession>removalListener((key, session, cause) -> {
+                    if (session != null) {
+                        session.close();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Окно графа начиная с {@code offset}. Пока сессия {@code graphId} жива, окна берутся из неё,
+     * даже если ветки уже сдвинулись ({@code outdated = true}). Без {@code graphId} или после
+     * истечения сессии раскладка строится по текущим веткам, и окно отдаётся с начала, если
+     * ветки успели сдвинуться.
+     */
+    public GraphWindow getWindow(String graphId, int offset, int limit, CancellableProgressMonitor monitor)
+            throws IOException {
+        Repository repository = gitService.repository();
+        List<ObjectId> tips = tips(repository);
+        String currentId = graphId(tips);
+        int size = Math.max(1, Math.min(limit, MAX_WINDOW));
+
+        String sessionId = currentId;
+        GraphSession session = graphId != null ? sessions.getIfPresent(graphId) : null;
+        if (session != null) {
+            sessionId = graphId;
+        } else {
+            session = sessions.get(currentId, id -> {
+                try {
+                    return new GraphSession(repository, tips);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Не удалось начать обход истории", e);
+                }
+            });
+        }
+        int start = sessionId.equals(graphId) ? Math.max(0, offset) : 0;
+        List<GraphRow> rows;
+        try {
+            rows = session.window(start, size, lookahead, maxLookahead, monitor);
+        } finally {
+            if (session.isBroken()) {
+                sessions.asMap().remove(sessionId, session);
+            }
+        }
+        int next = start + rows.size();
+        return new GraphWindow(sessionId, start, next, session.hasMore(next), session.isSettled(next),
+                !sessionId.equals(currentId), rows);
+    }
+
+    private static List<ObjectId> tips(Repository repository) throws IOException {
+        TreeSet<ObjectId> tips = new TreeSet<>();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head != null) {
+            tips.add(head);
+        }
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS)) {
+            ObjectId id = ref.getObjectId();
+            if (id != null) {
+                tips.add(id);
+            }
+        }
+        return List.copyOf(tips);
+    }
+
+    private static String graphId(List<ObjectId> tips) {
+        MessageDigest digest = Constants.newMessageDigest();
+        for (ObjectId tip : tips) {
+            digest.update(tip.getName().getBytes(StandardCharsets.US_ASCII));
+        }
+        return ObjectId.fromRaw(digest.digest()).abbreviate(12).name();
+    }
+}
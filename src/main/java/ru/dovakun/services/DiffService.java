@@ -0,0 +1,285 @@
+package ru.dovakun.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaadin.hilla.exception.EndpointException;
+import jakarta.annotation.PreDestroy;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Сравнение двух произвольных коммитов (или деревьев). Список изменённых путей строится обходом
+ * обоих деревьев с фильтром {@link TreeFilter#ANY_DIFF}: поддеревья с одинаковым id пропускаются
+ * целиком, поэтому стоимость зависит от объёма изменений, а не от размера репозитория.
+ * Построчный diff файла считается отдельно и только по запросу.
+ *
+ * <p>Для пар заменённых строк сервер сразу считает изменённые участки внутри строки (по словам),
+ * чтобы клиенту не приходилось сравнивать тексты самому. Готовый diff кэшируется по паре
+ * id блобов, поэтому повторное открытие файла в любой паре ревизий ничего не пересчитывает.
+ * Кэш ограничен примерным объёмом занятой памяти ({@code git.diff.cacheMaxBytes}), а не числом
+ * записей: diff одного большого файла может весить как сотни маленьких.
+ */
+@Service
+public class DiffService {
+
+    private static final int BATCH_SIZE = 200;
+    private static final int CONTEXT_LINES = 3;
+    // Примерные накладные расходы объекта строки diff и одного участка подсветки
+    private static final int LINE_OVERHEAD_BYTES = 64;
+    private static final int HIGHLIGHT_BYTES = 24;
+
+    public enum ChangeType { ADD, DELETE, MODIFY }
+
+    public enum LineType { CONTEXT, ADDED, REMOVED }
+
+    public record ChangedPath(String path, ChangeType changeType) {}
+
+    /**
+     * Изменённый участок строки: {@code start} включительно, {@code end} не включительно.
+     */
+    public record Highlight(int start, int end) {}
+
+    public record DiffLine(LineType type, String text, List<Highlight> highlights) {}
+
+    public record DiffHunk(int oldStart, int oldCount, int newStart, int newCount, List<DiffLine> lines) {}
+
+    public record FileDiff(String path, boolean binary, List<DiffHunk> hunks) {}
+
+    private record DiffKey(ObjectId oldBlob, ObjectId newBlob, String path) {}
+
+    private final GitService gitService;
+    private final long maxBlobBytes;
+    private final int maxHighlightLineLength;
+    private final Cache<DiffKey, FileDiff> fileDiffCache;
+    private final Scheduler scheduler = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "range-diff");
+
+    public DiffService(GitService gitService, @Value("${git.limits.maxBlobBytes:5242880}") long maxBlobBytes,
+                       @Value("${git.diff.maxHighlightLineLength:1000}") int maxHighlightLineLength,
+                       @Value("${git.diff.cacheMaxBytes:67108864}") long cacheMaxBytes) {
+        this.gitService = gitService;
+        this.maxBlobBytes = maxBlobBytes;
+        this.maxHighlightLineLength = maxHighlightLineLength;
+        this.fileDiffCache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .<DiffKey, FileDiff>weigher((key, diff) -> estimateBytes(diff))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Поток изменённых путей между двумя ревизиями, пачками по {@value #BATCH_SIZE}.
+     * Обход прекращается, если клиент отписался или монитор отменён.
+     */
+    public Flux<List<ChangedPath>> streamChanges(String from, String to, CancellableProgressMonitor monitor) {
+        return Flux.<List<ChangedPath>>create(sink -> {
+            try {
+                walkChanges(from, to, sink, monitor);
+                sink.complete();
+            } catch (Exception e) {
+                sink.error(e);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    private void walkChanges(String from, String to, FluxSink<List<ChangedPath>> sink,
+                             CancellableProgressMonitor monitor) throws IOException {
+        Repository repository = gitService.repository();
+        ObjectId oldTree = resolveTree(repository, from);
+        ObjectId newTree = resolveTree(repository, to);
+        try (ObjectReader reader = repository.newObjectReader();
+             TreeWalk walk = new TreeWalk(reader)) {
+            walk.addTree(oldTree);
+            walk.addTree(newTree);
+            walk.setRecursive(true);
+            walk.setFilter(TreeFilter.ANY_DIFF);
+
+            List<ChangedPath> batch = new ArrayList<>(BATCH_SIZE);
+            while (!sink.isCancelled() && walk.next()) {
+                monitor.checkCancelled();
+                batch.add(new ChangedPath(walk.getPathString(), changeType(walk)));
+                if (batch.size() == BATCH_SIZE) {
+                    sink.next(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty() && !sink.isCancelled()) {
+                sink.next(batch);
+            }
+        }
+    }
+
+    private static ChangeType changeType(TreeWalk walk) {
+        if (walk.getRawMode(0) == FileMode.TYPE_MISSING) {
+            return ChangeType.ADD;
+        }
+        if (walk.getRawMode(1) == FileMode.TYPE_MISSING) {
+            return ChangeType.DELETE;
+        }
+        return ChangeType.MODIFY;
+    }
+
+    /**
+     * Построчный diff одного файла между двумя ревизиями, разбитый на ханки с контекстом.
+     * У заменённых строк заполнены {@code highlights}; строки длиннее
+     * {@code git.diff.maxHighlightLineLength} сравниваются только целиком.
+     */
+    public FileDiff getFileDiff(String from, String to, String path) throws IOException {
+        Repository repository = gitService.repository();
+        try (ObjectReader reader = repository.newObjectReader()) {
+            DiffKey key = new DiffKey(findBlob(reader, resolveTree(repository, from), path),
+                    findBlob(reader, resolveTree(repository, to), path), path);
+            FileDiff diff = fileDiffCache.getIfPresent(key);
+            if (diff == null) {
+                diff = computeDiff(path, readBlob(reader, key.oldBlob(), path, maxBlobBytes),
+                        readBlob(reader, key.newBlob(), path, maxBlobBytes));
+                fileDiffCache.put(key, diff);
+            }
+            return diff;
+        }
+    }
+
+    FileDiff computeDiff(String path, byte[] oldContent, byte[] newContent) {
+        if (RawText.isBinary(oldContent) || RawText.isBinary(newContent)) {
+            return new FileDiff(path, true, List.of());
+        }
+        RawText oldText = new RawText(oldContent);
+        RawText newText = new RawText(newContent);
+        EditList edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM)
+                .diff(RawTextComparator.DEFAULT, oldText, newText);
+        return new FileDiff(path, false, toHunks(edits, oldText, newText));
+    }
+
+    private List<DiffHunk> toHunks(EditList edits, RawText oldText, RawText newText) {
+        List<DiffHunk> hunks = new ArrayList<>();
+        int i = 0;
+        while (i < edits.size()) {
+            // Правки, контекст которых перекрывается, объединяются в один ханк
+            int last = i;
+            while (last + 1 < edits.size()
+                    && edits.get(last + 1).getBeginA() - edits.get(last).getEndA() <= 2 * CONTEXT_LINES) {
+                last++;
+            }
+            Edit first = edits.get(i);
+            int oldStart = Math.max(0, first.getBeginA() - CONTEXT_LINES);
+            int newStart = Math.max(0, first.getBeginB() - CONTEXT_LINES);
+            int oldEnd = Math.min(oldText.size(), edits.get(last).getEndA() + CONTEXT_LINES);
+            int newEnd = Math.min(newText.size(), edits.get(last).getEndB() + CONTEXT_LINES);
+
+            List<DiffLine> lines = new ArrayList<>();
+            int oldPos = oldStart;
+            for (int k = i; k <= last; k++) {
+                Edit edit = edits.get(k);
+                for (; oldPos < edit.getBeginA(); oldPos++) {
+                    lines.add(new DiffLine(LineType.CONTEXT, oldText.getString(oldPos), List.of()));
+                }
+                addChangedLines(edit, oldText, newText, lines);
+                oldPos = edit.getEndA();
+            }
+            for (; oldPos < oldEnd; oldPos++) {
+                lines.add(new DiffLine(LineType.CONTEXT, oldText.getString(oldPos), List.of()));
+            }
+            hunks.add(new DiffHunk(oldStart + 1, oldEnd - oldStart, newStart + 1, newEnd - newStart, lines));
+            i = last + 1;
+        }
+        return hunks;
+    }
+
+    /**
+     * Удалённые и добавленные строки правки. В замене k-я удалённая строка сравнивается
+     * по словам и символам с k-й добавленной; лишние строки с одной из сторон остаются без подсветки.
+     */
+    private void addChangedLines(Edit edit, RawText oldText, RawText newText, List<DiffLine> lines) {
+        int pairs = Math.min(edit.getLengthA(), edit.getLengthB());
+        List<List<Highlight>> added = new ArrayList<>(edit.getLengthB());
+        for (int k = 0; k < edit.getLengthA(); k++) {
+            String oldLine = oldText.getString(edit.getBeginA() + k);
+            List<Highlight> removedRanges = List.of();
+            if (k < pairs) {
+                String newLine = newText.getString(edit.getBeginB() + k);
+                List<Highlight> addedRanges = List.of();
+                if (oldLine.length() <= maxHighlightLineLength && newLine.length() <= maxHighlightLineLength) {
+                    removedRanges = new ArrayList<>();
+                    addedRanges = new ArrayList<>();
+                    WordDiff.compare(oldLine, newLine, removedRanges, addedRanges);
+                }
+                added.add(addedRanges);
+            }
+            lines.add(new DiffLine(LineType.REMOVED, oldLine, removedRanges));
+        }
+        for (int k = 0; k < edit.getLengthB(); k++) {
+            lines.add(new DiffLine(LineType.ADDED, newText.getString(edit.getBeginB() + k),
+                    k < pairs ? added.get(k) : List.of()));
+        }
+    }
+
+    /**
+     * Примерный размер diff в памяти: текст строк (UTF-16) плюс накладные расходы на объекты.
+     */
+    private static int estimateBytes(FileDiff diff) {
+        long bytes = LINE_OVERHEAD_BYTES + 2L * diff.path().length();
+        for (DiffHunk hunk : diff.hunks()) {
+            for (DiffLine line : hunk.lines()) {
+                bytes += LINE_OVERHEAD_BYTES + 2L * line.text().length()
+                        + (long) HIGHLIGHT_BYTES * line.highlights().size();
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static ObjectId resolveTree(Repository repository, String revision) throws IOException {
+        ObjectId tree = repository.resolve(revision + "^{tree}");
+        if (tree == null) {
+            throw new IllegalArgumentException("Ревизия не найдена: " + revision);
+        }
+        return tree;
+    }
+
+    /**
+     * Id блоба файла в дереве; {@link ObjectId#zeroId()}, если файла нет.
+     */
+    private static ObjectId findBlob(ObjectReader reader, ObjectId tree, String path) throws IOException {
+        try (TreeWalk walk = TreeWalk.forPath(reader, path, tree)) {
+            if (walk == null || (walk.getRawMode(0) & FileMode.TYPE_MASK) != FileMode.TYPE_FILE) {
+                return ObjectId.zeroId();
+            }
+            return walk.getObjectId(0);
+        }
+    }
+
+    private static byte[] readBlob(ObjectReader reader, ObjectId blob, String path, long maxBytes) throws IOException {
+        if (ObjectId.zeroId().equals(blob)) {
+            return new byte[0];
+        }
+        ObjectLoader loader = reader.open(blob, Constants.OBJ_BLOB);
+        if (loader.getSize() > maxBytes) {
+            throw new EndpointException("Файл слишком большой для сравнения: " + path);
+        }
+        return loader.getBytes();
+    }
+}
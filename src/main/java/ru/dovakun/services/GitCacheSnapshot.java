@@ -0,0 +1,377 @@
+package ru.dovakun.services;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Снимок производных данных Git (список коммитов и списки изменённых файлов), который
+ * сохраняется при остановке и читается при старте, чтобы первые запросы после перезапуска
+ * не платили за полный обход истории.
+ *
+ * <p>Файл отображается в память и читается лениво: при старте проверяется только заголовок,
+ * а записи ищутся двоичным поиском по отсортированной таблице идентификаторов коммитов.
+ * Списки изменённых файлов привязаны к неизменяемым id коммитов и годятся всегда; список
+ * коммитов используется, только если сохранённый HEAD совпадает с текущим.
+ *
+ * <p>Каждое сохранение пишет новый файл-поколение {@code gitweb-cache.bin.<N>} через уникальный
+ * временный файл, публикуемый жёсткой ссылкой, и никогда не перезаписывает существующий:
+ * на Windows нельзя заменить файл, который отображён в память, а в кластере несколько
+ * экземпляров могут сохранять снимок одновременно. При загрузке берётся последнее поколение, более старые удаляются.
+ *
+ * <p>Формат: {@code magic, version, head[20], listSize, listSize * entryIndex, entryCount,
+ * entryCount * (id[20], offset)}, затем записи {@code date, message, fileCount, files...};
+ * строки хранятся как длина и байты UTF-8.
+ */
+@Component
+public class GitCacheSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(GitCacheSnapshot.class);
+
+    private static final int MAGIC = 0x47574353; // "GWCS"
+    private static final int VERSION = 2;
+    private static final String FILE_NAME = "gitweb-cache.bin";
+    private static final int ID_ENTRY_SIZE = Constants.OBJECT_ID_LENGTH + Integer.BYTES;
+    private static final Duration STALE_TEMP_AGE = Duration.ofMinutes(10);
+
+    public record CommitEntry(ObjectId id, String date, String message, List<String> files) {}
+
+    private record Generation(long number, Path path) {}
+
+    private final Path directory;
+    private final String baseName;
+
+    private MappedByteBuffer buffer;
+    private Path mapped;
+    private boolean loaded;
+    private ObjectId head;
+    private int listPosition;
+    private int entryCount;
+    private int tablePosition;
+
+    public GitCacheSnapshot(@Value("${git.localRepo}") String pathRepo, @Value("${git.cacheSnapshot:}") String path) {
+        Path file;
+        if (!path.isBlank()) {
+            file = Path.of(path).toAbsolutePath();
+        } else {
+            File gitDir = new FileRepositoryBuilder().findGitDir(new File(pathRepo)).getGitDir();
+            file = (gitDir != null ? gitDir : new File(pathRepo)).toPath().toAbsolutePath().resolve(FILE_NAME);
+        }
+        this.directory = file.getParent();
+        this.baseName = file.getFileName().toString();
+    }
+
+    /**
+     * Сохранённый список коммитов, если снимок был сделан при том же HEAD.
+     */
+    public synchronized Optional<List<CommitEntry>> commitList(ObjectId currentHead) {
+        if (!load() || currentHead == null || !currentHead.equals(head)) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer view = buffer.duplicate();
+            view.position(listPosition);
+            int size = view.getInt();
+            List<CommitEntry> commits = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int entry = view.getInt();
+                commits.add(readEntry(entryId(entry), entryOffset(entry)));
+            }
+            return Optional.of(commits);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            discard("повреждён список коммитов");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Сохранённый список изменённых файлов коммита.
+     */
+    public synchronized Optional<List<String>> changedFiles(AnyObjectId commitId) {
+        if (!load()) {
+            return Optional.empty();
+        }
+        try {
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            commitId.copyRawTo(raw, 0);
+            int low = 0;
+            int high = entryCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareId(mid, raw);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return Optional.of(readEntry(null, entryOffset(mid)).files());
+                }
+            }
+            return Optional.empty();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            discard("повреждена таблица коммитов");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Записывает снимок во временный файл и переименовывает его в следующее поколение.
+     */
+    public synchronized void write(ObjectId listHead, List<CommitEntry> commitList,
+                                   Map<ObjectId, List<String>> changedFiles) throws IOException {
+        Map<ObjectId, CommitEntry> entries = new TreeMap<>();
+        changedFiles.forEach((id, files) -> entries.put(id, new CommitEntry(id, "", "", files)));
+        commitList.forEach(commit -> entries.put(commit.id(), commit));
+
+        List<ObjectId> ids = new ArrayList<>(entries.keySet());
+        Map<ObjectId, Integer> positions = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+
+        int headerSize = 2 * Integer.BYTES + Constants.OBJECT_ID_LENGTH
+                + Integer.BYTES + commitList.size() * Integer.BYTES
+                + Integer.BYTES + ids.size() * ID_ENTRY_SIZE;
+        int[] offsets = new int[ids.size()];
+        List<byte[]> records = new ArrayList<>(ids.size());
+        int offset = headerSize;
+        for (int i = 0; i < ids.size(); i++) {
+            byte[] record = encode(entries.get(ids.get(i)));
+            offsets[i] = offset;
+            offset += record.length;
+            records.add(record);
+        }
+
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, baseName + ".", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            (listHead != null ? listHead : ObjectId.zeroId()).copyRawTo(raw, 0);
+            out.write(raw);
+            out.writeInt(commitList.size());
+            for (CommitEntry commit : commitList) {
+                out.writeInt(positions.get(commit.id()));
+            }
+            out.writeInt(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                ids.get(i).copyRawTo(raw, 0);
+                out.write(raw);
+                out.writeInt(offsets[i]);
+            }
+            for (byte[] record : records) {
+                out.write(record);
+            }
+        }
+        Generation target = publish(temp);
+        log.info("Снимок кэша Git сохранён: {} коммитов в {}", ids.size(), target.path());
+        deleteOlderThan(target);
+    }
+
+    /**
+     * Публикует временный файл как первое свободное поколение. Жёсткая ссылка создаётся
+     * атомарно и падает, если имя уже занято, — в отличие от {@link Files#move}, который без
+     * {@code REPLACE_EXISTING} проверяет существование отдельно от {@code rename()} и может
+     * молча заменить поколение, записанное другим экземпляром. Если номер занят, берётся следующий.
+     */
+    private Generation publish(Path temp) throws IOException {
+        List<Generation> existing = generations();
+        long number = existing.isEmpty() ? 1 : existing.get(0).number() + 1;
+        try {
+            while (true) {
+                Path target = directory.resolve(baseName + "." + number);
+                try {
+                    return new Generation(number, Files.createLink(target, temp));
+                } catch (FileAlreadyExistsException e) {
+                    number++;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Поколения снимка, начиная с последнего.
+     */
+    private List<Generation> generations() throws IOException {
+        List<Generation> result = new ArrayList<>();
+        String prefix = baseName + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path path : files) {
+                String suffix = path.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    try {
+                        result.add(new Generation(Long.parseLong(suffix), path));
+                    } catch (NumberFormatException ignored) {
+                        // слишком длинный номер — не наш файл
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        result.sort(Comparator.comparingLong(Generation::number).reversed());
+        return result;
+    }
+
+    /**
+     * Удаляет поколения старше {@code current} и брошенные временные файлы. Файл, который ещё
+     * отображён в память этим или другим экземпляром, на Windows не удалится — тогда его
+     * уберёт следующий запуск.
+     */
+    private void deleteOlderThan(Generation current) {
+        try {
+            for (Generation generation : generations()) {
+                if (generation.number() < current.number() && !generation.path().equals(mapped)) {
+                    deleteQuietly(generation.path());
+                }
+            }
+            Instant staleBefore = Instant.now().minus(STALE_TEMP_AGE);
+            try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, baseName + ".*.tmp")) {
+                for (Path temp : temps) {
+                    if (Files.getLastModifiedTime(temp).toInstant().isBefore(staleBefore)) {
+                        deleteQuietly(temp);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Не удалось убрать старые снимки кэша Git в {}", directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Не удалось удалить {}", path, e);
+        }
+    }
+
+    private boolean load() {
+        if (loaded) {
+            return buffer != null;
+        }
+        loaded = true;
+        Generation latest;
+        try {
+            List<Generation> existing = generations();
+            if (existing.isEmpty()) {
+                return false;
+            }
+            latest = existing.get(0);
+        } catch (IOException e) {
+            log.warn("Не удалось найти снимок кэша Git в {}", directory, e);
+            return false;
+        }
+        deleteOlderThan(latest);
+        Path file = latest.path();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped = file;
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                discard("неизвестный формат");
+                return false;
+            }
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            buffer.get(2 * Integer.BYTES, raw);
+            head = ObjectId.fromRaw(raw);
+            listPosition = 2 * Integer.BYTES + Constants.OBJECT_ID_LENGTH;
+            int listSize = buffer.getInt(listPosition);
+            int countPosition = listPosition + Integer.BYTES + listSize * Integer.BYTES;
+            entryCount = buffer.getInt(countPosition);
+            tablePosition = countPosition + Integer.BYTES;
+            log.info("Снимок кэша Git загружен: {} коммитов из {}", entryCount, file);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось прочитать снимок кэша Git {}", file, e);
+            buffer = null;
+            return false;
+        }
+    }
+
+    private void discard(String reason) {
+        log.warn("Снимок кэша Git {} не используется: {}", mapped, reason);
+        buffer = null;
+    }
+
+    private int compareId(int entry, byte[] raw) {
+        int position = tablePosition + entry * ID_ENTRY_SIZE;
+        for (int i = 0; i < raw.length; i++) {
+            int cmp = Integer.compare(buffer.get(position + i) & 0xff, raw[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private ObjectId entryId(int entry) {
+        byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+        buffer.get(tablePosition + entry * ID_ENTRY_SIZE, raw);
+        return ObjectId.fromRaw(raw);
+    }
+
+    private int entryOffset(int entry) {
+        return buffer.getInt(tablePosition + entry * ID_ENTRY_SIZE + Constants.OBJECT_ID_LENGTH);
+    }
+
+    private CommitEntry readEntry(ObjectId id, int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        String date = readString(view);
+        String message = readString(view);
+        int fileCount = view.getInt();
+        List<String> files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            files.add(readString(view));
+        }
+        return new CommitEntry(id, date, message, files);
+    }
+
+    private static String readString(ByteBuffer view) {
+        byte[] bytes = new byte[view.getInt()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(CommitEntry entry) {
+        byte[] date = entry.date().getBytes(StandardCharsets.UTF_8);
+        byte[] message = entry.message().getBytes(StandardCharsets.UTF_8);
+        List<byte[]> files = entry.files().stream().map(path -> path.getBytes(StandardCharsets.UTF_8)).toList();
+
+        int size = 3 * Integer.BYTES + date.length + message.length;
+        for (byte[] path : files) {
+            size += Integer.BYTES + path.length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.putInt(date.length).put(date).putInt(message.length).put(message).putInt(files.size());
+        files.forEach(path -> record.putInt(path.length).put(path));
+        return record.array();
+    }
+}
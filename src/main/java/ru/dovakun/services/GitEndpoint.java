@@ -4,22 +4,13 @@ import com.vaadin.flow.server.auth.AnonymousAllowed;
 import com.vaadin.hilla.BrowserCallable;
 import com.vaadin.hilla.Endpoint;
 import com.vaadin.hilla.Nonnull;
+import com.vaadin.hilla.exception.EndpointException;
 import lombok.Data;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
-import org.eclipse.jgit.revwalk.RevWalk;
 import org.springframework.beans.factory.annotation.Value;
+import ru.dovakun.services.GitOperationLimiter.OperationClass;
+import reactor.core.publisher.Flux;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -32,31 +23,45 @@ public class GitEndpoint {
 
     private final String pathRepo;
     private final GitService gitService;
+    private final RefService refService;
+    private final DiffService diffService;
+    private final CommitGraphService commitGraphService;
+    private final GitOperationLimiter limiter;
 
-    public GitEndpoint(@Value("${git.localRepo}") String pathRepo, GitService gitService) {
+    public GitEndpoint(@Value("${git.localRepo}") String pathRepo, GitService gitService, RefService refService,
+                       DiffService diffService, CommitGraphService commitGraphService, GitOperationLimiter limiter) {
         if (pathRepo.isBlank()) {
             throw new IllegalArgumentException("Git repository path cannot be null or empty");
         }
         this.pathRepo = pathRepo;
         this.gitService = gitService;
+        this.refService = refService;
+        this.diffService = diffService;
+        this.commitGraphService = commitGraphService;
+        this.limiter = limiter;
     }
 
     /**
      * Получает версии файла: оригинальную (до изменений) и изменённую
      */
-    public void updateFileContent(String filePath, String content) throws IOException {
-        Path fullPath = Paths.get(pathRepo, filePath);
-        Files.writeString(fullPath, content, StandardCharsets.UTF_8);
+    public void updateFileContent(String filePath, String content) {
+        try {
+            limiter.call(OperationClass.WRITE, monitor -> {
+                gitService.updateFileContent(filePath, content);
+                return null;
+            });
+        } catch (EndpointException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при сохранении файла: " + filePath, e);
+        }
     }
     public Map<String, String> getFileVersions(String commitHash, String filePath) {
         try {
-            GitService.FileVersions fileVersions;
-
-            if ("unstaged".equals(commitHash)) {
-                fileVersions = gitService.getUncommittedFileVersions(filePath);
-            } else {
-                fileVersions = gitService.getFileVersions(commitHash, filePath);
-            }
+            GitService.FileVersions fileVersions = limiter.call(OperationClass.DIFF, monitor ->
+                    "unstaged".equals(commitHash)
+                            ? gitService.getUncommittedFileVersions(filePath)
+                            : gitService.getFileVersions(commitHash, filePath));
 
             // Преобразуем FileVersions в Map<String, String>
             Map<String, String> result = new HashMap<>();
@@ -64,6 +69,8 @@ public class GitEndpoint {
             result.put("modified", fileVersions.newContent());
 
             return result;
+        } catch (EndpointException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при получении версий файла: " + filePath, e);
         }
@@ -75,59 +82,86 @@ public class GitEndpoint {
     public List<String> getUncommittedChanges() {
         try {
             return gitService.getUncommittedChanges();
+        } catch (EndpointException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при получении списка незакоммиченных файлов", e);
         }
     }
-    public @Nonnull String getFileContent(String commitHash, String filePath) throws IOException, GitAPIException {
-        File repoDir = new File(pathRepo);
-        try (Git git = Git.open(repoDir)) {
-            if (commitHash == null || commitHash.isEmpty() || commitHash.equals("HEAD")) {
-                Path targetPath = Paths.get(pathRepo, filePath);
-                if (Files.exists(targetPath)) {
-                    return Files.readString(targetPath, StandardCharsets.UTF_8);
-                } else {
-                    return "";
-                }
-            }
-
-            Repository repository = git.getRepository();
-            ObjectId commitId = repository.resolve(commitHash);
-            if (commitId == null) {
-                return "";
-            }
-            try (RevWalk revWalk = new RevWalk(repository)) {
-                RevCommit commit = revWalk.parseCommit(commitId);
-                return getFileContentFromCommit(repository, commit, filePath);
-            }
-        }
-    }
-    private String getFileContentFromCommit(Repository repository, RevCommit commit, String filePath) throws IOException {
-        RevTree tree = commit.getTree();
-        try (org.eclipse.jgit.treewalk.TreeWalk treeWalk = new org.eclipse.jgit.treewalk.TreeWalk(repository)) {
-            treeWalk.addTree(tree);
-            treeWalk.setRecursive(true);
-            while (treeWalk.next()) {
-                if (treeWalk.getPathString().equals(filePath)) {
-                    ObjectId objectId = treeWalk.getObjectId(0);
-                    var loader = repository.open(objectId);
-                    byte[] data = loader.getBytes();
-                    return new String(data, StandardCharsets.UTF_8);
-                }
-            }
+    /**
+     * Получает содержимое файла в коммите; для HEAD — из рабочего каталога
+     */
+    public @Nonnull String getFileContent(String commitHash, String filePath) {
+        try {
+            return limiter.call(OperationClass.READ, monitor -> gitService.getFileContent(commitHash, filePath));
+        } catch (EndpointException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при чтении файла: " + filePath, e);
         }
-        return "";
     }
+
     /**
      * Получает историю коммитов + добавляет "виртуальный" коммит для незакоммиченных изменений
      */
     public List<Map<String, Object>> getAllCommits() {
         try {
             return gitService.getAllCommits();
+        } catch (EndpointException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при получении истории коммитов", e);
         }
     }
+
+    /**
+     * Получает ветки и теги; для веток считает коммиты впереди и позади базы (по умолчанию HEAD)
+     */
+    public @Nonnull List<RefService.@Nonnull RefComparison> getRefs(String base) {
+        try {
+            return limiter.call(OperationClass.HISTORY, monitor -> refService.compareWith(base, monitor));
+        } catch (EndpointException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при получении списка веток", e);
+        }
+    }
+
+    /**
+     * Потоково отдаёт пути, изменённые между двумя ревизиями (ветки, теги, хэши коммитов)
+     */
+    public @Nonnull Flux<@Nonnull List<DiffService.@Nonnull ChangedPath>> getRangeChanges(String from, String to) {
+        return limiter.stream(OperationClass.DIFF, monitor -> diffService.streamChanges(from, to, monitor));
+    }
+
+    /**
+     * Получает построчный diff одного файла между двумя ревизиями
+     */
+    public DiffService.@Nonnull FileDiff getRangeFileDiff(String from, String to, String filePath) {
+        try {
+            return limiter.call(OperationClass.DIFF, monitor -> diffService.getFileDiff(from, to, filePath));
+        } catch (EndpointException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при сравнении файла: " + filePath, e);
+        }
+    }
+
+    /**
+     * Получает окно графа коммитов с раскладкой по дорожкам; graphId и offset берутся из предыдущего окна.
+     * Строки с complete = false ещё не окончательные и запрашиваются повторно. Если ветки сдвинулись,
+     * окна продолжают идти из прежней раскладки с outdated = true; свежая — запрос без graphId.
+     * Первое окно новой раскладки читает всю историю
+     */
+    public CommitGraphService.@Nonnull GraphWindow getCommitGraph(String graphId, int offset, int limit) {
+        try {
+            return limiter.call(OperationClass.HISTORY, monitor -> commitGraphService.getWindow(graphId, offset, limit, monitor));
+        } catch (EndpointException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при построении графа коммитов", e);
+        }
+    }
     @Data
     public static class FileNode {
         public String name;
@@ -135,12 +169,21 @@ public class GitEndpoint {
         public boolean directory;
         private List<FileNode> children = new ArrayList<>();
     }
+    /**
+     * Получает дерево файлов рабочего каталога; обход прерывается по крайнему сроку
+     */
     public @Nonnull List<@Nonnull FileNode> getRepositoryTree() {
-        File repoDir = new File(pathRepo);
-        return listDirectory(repoDir, "");
+        try {
+            return limiter.call(OperationClass.READ, monitor -> listDirectory(new File(pathRepo), "", monitor));
+        } catch (EndpointException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при получении дерева файлов", e);
+        }
     }
 
-    private List<FileNode> listDirectory(File dir, String relativePath) {
+    private List<FileNode> listDirectory(File dir, String relativePath, CancellableProgressMonitor monitor) {
+        monitor.checkCancelled();
         List<FileNode> nodes = new ArrayList<>();
         File[] files = dir.listFiles();
         if (files == null) {
@@ -148,7 +191,6 @@ public class GitEndpoint {
             return nodes;
         }
         for (File file : files) {
-            System.out.println("Найден файл: " + file.getName());
             if (file.getName().equals(".git")) {
                 continue;
             }
@@ -157,7 +199,7 @@ public class GitEndpoint {
             node.path = relativePath.isEmpty() ? file.getName() : relativePath + "/" + file.getName();
             if (file.isDirectory()) {
                 node.directory = true;
-                node.children = listDirectory(file, node.path);
+                node.children = listDirectory(file, node.path, monitor);
             } else {
                 node.directory = false;
             }
@@ -174,8 +216,11 @@ public class GitEndpoint {
             if ("unstaged".equals(commitHash)) {
                 return gitService.getUncommittedChanges();
             }
-            List<String> changedFiles = gitService.getChangedFiles(commitHash);
+            List<String> changedFiles = limiter.call(OperationClass.DIFF,
+                    monitor -> gitService.getChangedFiles(commitHash, monitor));
             return changedFiles != null ? changedFiles : List.of(); // Возвращаем пустой список вместо null
+        } catch (EndpointException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при получении изменённых файлов для коммита: " + commitHash, e);
         }
@@ -186,7 +231,9 @@ public class GitEndpoint {
      */
     public String createCommit(List<String> files, String commitMessage) {
         try {
-            return gitService.createCommit(files, commitMessage);
+            return limiter.call(OperationClass.WRITE, monitor -> gitService.createCommit(files, commitMessage));
+        } catch (EndpointException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при создании коммита", e);
         }
@@ -197,7 +244,9 @@ public class GitEndpoint {
      */
     public String rollbackChanges(List<String> files) {
         try {
-            return gitService.rollbackChanges(files);
+            return limiter.call(OperationClass.WRITE, monitor -> gitService.rollbackChanges(files));
+        } catch (EndpointException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при откате изменений", e);
         }
@@ -0,0 +1,129 @@
+package ru.dovakun.services;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Ограничивает параллельность дорогих операций Git по классам. У каждого класса свой лимит
+ * одновременно выполняемых операций, ограниченная очередь ожидания и крайний срок ожидания и
+ * выполнения. Переполнение отклоняется сразу с {@link GitOverloadException}, так что тяжёлые
+ * запросы одного пользователя не отнимают ресурсы у остальных.
+ *
+ * <p>Крайний срок выполнения передаётся операции через {@link CancellableProgressMonitor} и
+ * прерывает обходы: diff коммита и диапазона, обход истории, счёт ahead/behind, раскладку графа,
+ * дерево файлов. Записи и чтение одного файла не прерываются: запись, оборванная на середине,
+ * хуже медленной, а чтение файла ограничено {@code git.limits.maxBlobBytes}. Для них действуют
+ * только лимит параллельности и очередь.
+ *
+ * <p>Обычный (не потоковый) вызов не узнаёт, что браузер ушёл со страницы, и работает до конца
+ * или до крайнего срока. Поэтому срок {@code history} — минута, а не время самого долгого обхода:
+ * брошенный список коммитов или веток не держит один из двух слотов дольше этого.
+ *
+ * <p>Настройки: {@code git.limits.<класс>.concurrency}, {@code .queue}, {@code .queueTimeout},
+ * {@code .deadline}, где класс — {@code read}, {@code diff}, {@code history} или {@code write}.
+ */
+@Component
+public class GitOperationLimiter {
+
+    public enum OperationClass {
+        READ(16, 64, Duration.ofSeconds(5), Duration.ofSeconds(30)),
+        DIFF(4, 16, Duration.ofSeconds(5), Duration.ofSeconds(30)),
+        HISTORY(2, 16, Duration.ofSeconds(10), Duration.ofSeconds(60)),
+        WRITE(1, 16, Duration.ofSeconds(30), Duration.ofMinutes(2));
+
+        private final int concurrency;
+        private final int queue;
+        private final Duration queueTimeout;
+        private final Duration deadline;
+
+        OperationClass(int concurrency, int queue, Duration queueTimeout, Duration deadline) {
+            this.concurrency = concurrency;
+            this.queue = queue;
+            this.queueTimeout = queueTimeout;
+            this.deadline = deadline;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run(CancellableProgressMonitor monitor) throws Exception;
+    }
+
+    private record Limit(Semaphore permits, AtomicInteger waiting, int queue, Duration queueTimeout, Duration deadline) {}
+
+    private final Map<OperationClass, Limit> limits = new EnumMap<>(OperationClass.class);
+
+    public GitOperationLimiter(Environment environment) {
+        for (OperationClass operationClass : OperationClass.values()) {
+            String prefix = "git.limits." + operationClass.name().toLowerCase() + ".";
+            limits.put(operationClass, new Limit(
+                    new Semaphore(environment.getProperty(prefix + "concurrency", Integer.class, operationClass.concurrency), true),
+                    new AtomicInteger(),
+                    environment.getProperty(prefix + "queue", Integer.class, operationClass.queue),
+                    environment.getProperty(prefix + "queueTimeout", Duration.class, operationClass.queueTimeout),
+                    environment.getProperty(prefix + "deadline", Duration.class, operationClass.deadline)));
+        }
+    }
+
+    /**
+     * Выполняет операцию, дождавшись свободного слота своего класса.
+     */
+    public <T> T call(OperationClass operationClass, Operation<T> operation) throws Exception {
+        Limit limit = limits.get(operationClass);
+        if (limit.waiting().incrementAndGet() > limit.queue()) {
+            limit.waiting().decrementAndGet();
+            throw overloaded();
+        }
+        boolean acquired;
+        try {
+            acquired = limit.permits().tryAcquire(limit.queueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            limit.waiting().decrementAndGet();
+        }
+        if (!acquired) {
+            throw overloaded();
+        }
+        try {
+            return operation.run(new CancellableProgressMonitor(System.nanoTime() + limit.deadline().toNanos()));
+        } finally {
+            limit.permits().release();
+        }
+    }
+
+    /**
+     * Потоковая операция: слот берётся при подписке без ожидания и освобождается при завершении.
+     * Если клиент отписался (ушёл со страницы), монитор отменяется и обход прекращается.
+     */
+    public <T> Flux<T> stream(OperationClass operationClass, Function<CancellableProgressMonitor, Flux<T>> operation) {
+        return Flux.defer(() -> {
+            Limit limit = limits.get(operationClass);
+            if (!limit.permits().tryAcquire()) {
+                return Flux.error(overloaded());
+            }
+            CancellableProgressMonitor monitor = new CancellableProgressMonitor(System.nanoTime() + limit.deadline().toNanos());
+            Flux<T> source;
+            try {
+                source = operation.apply(monitor);
+            } catch (RuntimeException e) {
+                limit.permits().release();
+                throw e;
+            }
+            return source
+                    .doOnCancel(monitor::cancel)
+                    .doFinally(signal -> limit.permits().release());
+        });
+    }
+
+    private static GitOverloadException overloaded() {
+        return new GitOverloadException("Сервер перегружен, повторите запрос позже");
+    }
+}
@@ -0,0 +1,14 @@
+package ru.dovakun.services;
+
+import com.vaadin.hilla.exception.EndpointException;
+
+/**
+ * Запрос отклонён ограничителем нагрузки или прерван по истечении отведённого времени.
+ * Сообщение передаётся клиенту как есть.
+ */
+public class GitOverloadException extends EndpointException {
+
+    public GitOverloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.dovakun.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Объединяет одновременные одинаковые запросы на чтение в одно вычисление (single-flight).
+ * Первый вызов с данным ключом выполняет работу, остальные ждут и получают тот же результат.
+ * Результат не кэшируется: после завершения вычисления ключ удаляется.
+ */
+@Component
+public class GitRequestCoalescer {
+
+    /**
+     * Ключ запроса: репозиторий, HEAD на момент запроса, операция и её аргументы.
+     */
+    public record Key(String repo, String headId, String operation, List<Object> args) {}
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Key key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+        try {
+            T value = loader.call();
+            created.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package ru.dovakun.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaadin.hilla.exception.EndpointException;
+import jakarta.annotation.PreDestroy;
 import org.eclipse.jgit.api.*;
-import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
@@ -21,31 +29,134 @@ import java.util.*;
 @Service
 public class GitService {
 
+    private static final Logger log = LoggerFactory.getLogger(GitService.class);
+
+    private record CachedCommits(ObjectId head, List<GitCacheSnapshot.CommitEntry> entries,
+                                 List<Map<String, Object>> commits) {}
+
     private final String pathRepo;
 
     private final Git git;
 
-    public GitService(@Value("${git.localRepo}")String pathRepo) throws Exception {
+    private final GitRequestCoalescer coalescer;
+
+    private final RepositoryWriteLease writeLease;
+
+    private final GitCacheSnapshot snapshot;
+
+    // Списки изменённых файлов привязаны к неизменяемым id коммитов, поэтому не устаревают
+    private final Cache<ObjectId, List<String>> changedFilesCache;
+
+    private volatile CachedCommits cachedCommits;
+
+    private final long maxBlobBytes;
+
+    private final GitOperationLimiter limiter;
+
+    public GitService(@Value("${git.localRepo}")String pathRepo, GitRequestCoalescer coalescer,
+                      RepositoryWriteLease writeLease, GitCacheSnapshot snapshot, GitOperationLimiter limiter,
+                      @Value("${git.cache.changedFiles.maxSize:100000}") long changedFilesMaxSize,
+                      @Value("${git.limits.maxBlobBytes:5242880}") long maxBlobBytes) throws Exception {
         this.pathRepo = pathRepo;
         this.git = Git.open(new File(pathRepo)); // Убедись, что путь правильный
+        this.coalescer = coalescer;
+        this.writeLease = writeLease;
+        this.snapshot = snapshot;
+        this.changedFilesCache = Caffeine.newBuilder().maximumSize(changedFilesMaxSize).build();
+        this.maxBlobBytes = maxBlobBytes;
+        this.limiter = limiter;
     }
 
-    public List<Map<String, Object>> getAllCommits() throws Exception {
-        List<Map<String, Object>> commits = new ArrayList<>();
-        Iterable<RevCommit> log = git.log().call();
+    /**
+     * Прогревает список коммитов в фоне, чтобы первый пользователь не ждал полного обхода истории.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread.ofVirtual().name("git-warm-up").start(() -> {
+            try {
+                getAllCommits();
+            } catch (Exception e) {
+                log.warn("Не удалось прогреть список коммитов", e);
+            }
+        });
+    }
+
+    /**
+     * Сохраняет горячие данные в снимок, который прочитается при следующем запуске.
+     */
+    @PreDestroy
+    public void saveSnapshot() {
+        CachedCommits cached = cachedCommits;
+        try {
+            snapshot.write(cached != null ? cached.head() : null, cached != null ? cached.entries() : List.of(),
+                    changedFilesCache.asMap());
+        } catch (Exception e) {
+            log.warn("Не удалось сохранить снимок кэша Git", e);
+        } finally {
+            git.close();
+        }
+    }
+
+    /**
+     * Репозиторий, с которым работает сервис; используется соседними сервисами пакета.
+     */
+    Repository repository() {
+        return git.getRepository();
+    }
 
-        for (RevCommit commit : log) {
-            Map<String, Object> commitInfo = new HashMap<>();
-            commitInfo.put("commitHash", commit.getName());
-            commitInfo.put("date", commit.getAuthorIdent().getWhen().toString());
-            commitInfo.put("message", commit.getFullMessage());
+    /**
+     * Ключ для объединения одинаковых запросов: одинаковые вызовы при одном и том же HEAD
+     * выполняются один раз.
+     */
+    private GitRequestCoalescer.Key requestKey(String operation, Object... args) throws Exception {
+        ObjectId head = git.getRepository().resolve(Constants.HEAD);
+        return new GitRequestCoalescer.Key(pathRepo, head != null ? head.getName() : ObjectId.zeroId().getName(),
+                operation, List.of(args));
+    }
+
+    /**
+     * Список коммитов от HEAD. Слот {@link GitOperationLimiter.OperationClass#HISTORY} берёт только
+     * ведущий запрос, который действительно обходит историю: присоединившиеся к нему ждут
+     * общий результат, не занимая ни слотов, ни места в очереди.
+     */
+    public List<Map<String, Object>> getAllCommits() throws Exception {
+        ObjectId head = git.getRepository().resolve(Constants.HEAD);
+        CachedCommits cached = cachedCommits;
+        if (cached != null && Objects.equals(cached.head(), head)) {
+            return cached.commits();
+        }
+        return coalescer.execute(requestKey("getAllCommits"), () -> limiter.call(
+                GitOperationLimiter.OperationClass.HISTORY, monitor -> loadAllCommits(head, monitor)));
+    }
 
-            List<String> changedFiles = getChangedFiles(commit.getName());
-            commitInfo.put("files", changedFiles);
+    private List<Map<String, Object>> loadAllCommits(ObjectId head, CancellableProgressMonitor monitor)
+            throws Exception {
+        List<GitCacheSnapshot.CommitEntry> entries = snapshot.commitList(head).orElse(null);
+        if (entries != null) {
+            entries.forEach(entry -> changedFilesCache.put(entry.id(), entry.files()));
+        } else {
+            entries = new ArrayList<>();
+            if (head != null) {
+                for (RevCommit commit : git.log().add(head).call()) {
+                    monitor.checkCancelled();
+                    entries.add(new GitCacheSnapshot.CommitEntry(commit.copy(),
+                            commit.getAuthorIdent().getWhen().toString(), commit.getFullMessage(),
+                            getChangedFiles(commit, monitor)));
+                }
+            }
+        }
 
-            commits.add(commitInfo);
+        List<Map<String, Object>> commits = new ArrayList<>(entries.size());
+        for (GitCacheSnapshot.CommitEntry entry : entries) {
+            commits.add(Map.of(
+                    "commitHash", entry.id().getName(),
+                    "date", entry.date(),
+                    "message", entry.message(),
+                    "files", entry.files()));
         }
-        return commits;
+        List<Map<String, Object>> result = Collections.unmodifiableList(commits);
+        cachedCommits = new CachedCommits(head, entries, result);
+        return result;
     }
 
 
@@ -130,77 +241,131 @@ public class GitService {
             throw new IllegalArgumentException("Файл не найден: " + filePath);
         }
 
+        checkBlobSize(file.length(), filePath);
         String newContent = Files.readString(file.toPath(), StandardCharsets.UTF_8);
         String oldContent = getFileContent(git.getRepository(), git.getRepository().resolve("HEAD"), filePath);
 
         return new FileVersions(oldContent, newContent);
     }
 
-    public List<String> getChangedFiles(String commitHash) throws Exception {
-        List<String> files = new ArrayList<>();
+    /**
+     * Содержимое файла в коммите; без коммита или для {@code HEAD} — из рабочего каталога.
+     * Отсутствующий файл или коммит даёт пустую строку, файл больше {@code git.limits.maxBlobBytes} отклоняется.
+     */
+    public String getFileContent(String commitHash, String filePath) throws Exception {
         Repository repository = git.getRepository();
+        if (commitHash == null || commitHash.isEmpty() || commitHash.equals("HEAD")) {
+            File file = new File(repository.getWorkTree(), filePath);
+            if (!file.isFile()) {
+                return "";
+            }
+            checkBlobSize(file.length(), filePath);
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        }
+        return getFileContent(repository, repository.resolve(commitHash), filePath);
+    }
 
-        ObjectId commitId = repository.resolve(commitHash);
+    /**
+     * Список изменённых файлов коммита; обход прерывается, если монитор отменён.
+     */
+    public List<String> getChangedFiles(String commitHash, CancellableProgressMonitor monitor) throws Exception {
+        ObjectId commitId = git.getRepository().resolve(commitHash);
         if (commitId == null) {
             throw new IllegalArgumentException("Коммит не найден: " + commitHash);
         }
+        return getChangedFiles(commitId, monitor);
+    }
 
-        RevWalk revWalk = new RevWalk(repository);
-        RevCommit commit = revWalk.parseCommit(commitId);
-
-        // 🟢 Проверяем, есть ли предыдущий коммит
-        RevCommit prevCommit = null;
-        if (commit.getParentCount() > 0) {
-            prevCommit = revWalk.parseCommit(commit.getParent(0));
+    private List<String> getChangedFiles(ObjectId commitId, CancellableProgressMonitor monitor) throws Exception {
+        List<String> files = changedFilesCache.getIfPresent(commitId);
+        if (files == null) {
+            files = snapshot.changedFiles(commitId).orElse(null);
         }
+        if (files == null) {
+            files = loadChangedFiles(commitId, monitor);
+        }
+        changedFilesCache.put(commitId.copy(), files);
+        return files;
+    }
 
-        revWalk.close();
-
-        try (ObjectReader reader = repository.newObjectReader()) {
-            CanonicalTreeParser newTree = new CanonicalTreeParser();
-            newTree.reset(reader, commit.getTree().getId());
-
-            CanonicalTreeParser oldTree = new CanonicalTreeParser();
-            if (prevCommit != null) {
-                oldTree.reset(reader, prevCommit.getTree().getId());
+    /**
+     * Пути, изменённые коммитом относительно первого родителя (у первого коммита — относительно
+     * пустого дерева). Одинаковые поддеревья пропускаются целиком, монитор проверяется на каждом пути.
+     */
+    private List<String> loadChangedFiles(ObjectId commitId, CancellableProgressMonitor monitor) throws Exception {
+        List<String> files = new ArrayList<>();
+        try (ObjectReader reader = git.getRepository().newObjectReader();
+             RevWalk revWalk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+            RevCommit commit = revWalk.parseCommit(commitId);
+            if (commit.getParentCount() > 0) {
+                treeWalk.addTree(revWalk.parseCommit(commit.getParent(0)).getTree());
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
             }
-
-            List<DiffEntry> diffs = new Git(repository)
-                    .diff()
-                    .setOldTree(prevCommit != null ? oldTree : null) // Если это первый коммит, oldTree = null
-                    .setNewTree(newTree)
-                    .call();
-
-            for (DiffEntry diff : diffs) {
-                files.add(diff.getNewPath());
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            while (treeWalk.next()) {
+                monitor.checkCancelled();
+                files.add(treeWalk.getPathString());
             }
         }
-        return files;
+        return Collections.unmodifiableList(files);
     }
 
-
+    /**
+     * Правки рабочего дерева не двигают HEAD, поэтому в ключ входит и версия рабочего дерева:
+     * вызов после собственной записи не присоединится к статусу, начатому до неё.
+     */
     public List<String> getUncommittedChanges() throws Exception {
-        Status status = git.status().call();
+        return coalescer.execute(requestKey("getUncommittedChanges", workTreeVersion()), () -> limiter.call(
+                GitOperationLimiter.OperationClass.READ, this::loadUncommittedChanges));
+    }
+
+    /**
+     * Номер записи этого процесса и снимок индекса (время изменения и размер), который
+     * меняют и записи других экземпляров.
+     */
+    private String workTreeVersion() {
+        File index = git.getRepository().getIndexFile();
+        return writeLease.generation() + ":" + index.lastModified() + ":" + index.length();
+    }
+
+    private List<String> loadUncommittedChanges(CancellableProgressMonitor monitor) throws Exception {
+        Status status = git.status().setProgressMonitor(monitor).call();
         List<String> changedFiles = new ArrayList<>();
         changedFiles.addAll(status.getModified());
         changedFiles.addAll(status.getAdded());
         changedFiles.addAll(status.getRemoved());
-        return changedFiles;
+        return Collections.unmodifiableList(changedFiles);
+    }
+
+    public void updateFileContent(String filePath, String content) throws Exception {
+        writeLease.runExclusive(() -> {
+            Files.writeString(new File(git.getRepository().getWorkTree(), filePath).toPath(), content,
+                    StandardCharsets.UTF_8);
+            return null;
+        });
     }
 
     public String createCommit(List<String> files, String commitMessage) throws Exception {
-        for (String file : files) {
-            git.add().addFilepattern(file).call();
-        }
-        git.commit().setMessage(commitMessage).call();
-        return "Commit successful";
+        return writeLease.runExclusive(() -> {
+            for (String file : files) {
+                git.add().addFilepattern(file).call();
+            }
+            git.commit().setMessage(commitMessage).call();
+            return "Commit successful";
+        });
     }
 
     public String rollbackChanges(List<String> files) throws Exception {
-        for (String file : files) {
-            git.checkout().addPath(file).call();
-        }
-        return "Rollback successful";
+        return writeLease.runExclusive(() -> {
+            for (String file : files) {
+                git.checkout().addPath(file).call();
+            }
+            return "Rollback successful";
+        });
     }
 
     private String getFileContent(Repository repository, ObjectId commitId, String filePath) throws Exception {
@@ -224,12 +389,19 @@ public class GitService {
                 }
 
                 ObjectId blobId = treeWalk.getObjectId(0);
-                byte[] data = reader.open(blobId).getBytes();
-                return new String(data, StandardCharsets.UTF_8);
+                ObjectLoader loader = reader.open(blobId);
+                checkBlobSize(loader.getSize(), filePath);
+                return new String(loader.getBytes(), StandardCharsets.UTF_8);
             }
         }
     }
 
+    private void checkBlobSize(long size, String filePath) {
+        if (size > maxBlobBytes) {
+            throw new EndpointException("Файл слишком большой для просмотра: " + filePath);
+        }
+    }
+
     private String extractRelevantLines(String baseContent, String compareContent) {
         String[] baseLines = baseContent.split("\n");
         String[] compareLines = compareContent.split("\n");
@@ -0,0 +1,53 @@
+package ru.dovakun.services;
+
+import com.vaadin.flow.server.auth.AnonymousAllowed;
+import com.vaadin.hilla.BrowserCallable;
+import com.vaadin.hilla.Nonnull;
+import ru.dovakun.data.AuthorActivity;
+import ru.dovakun.data.FileHotspot;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@BrowserCallable
+@AnonymousAllowed
+public class HistoryAnalyticsEndpoint {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final HistoryAnalyticsService analyticsService;
+
+    public HistoryAnalyticsEndpoint(HistoryAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * Самые часто изменяемые файлы начиная с месяца указанной даты
+     */
+    public @Nonnull List<@Nonnull FileHotspot> getHotspots(LocalDate from, int limit) {
+        return analyticsService.getHotspots(orEpoch(from), clamp(limit));
+    }
+
+    /**
+     * Активность авторов начиная с месяца указанной даты: число коммитов и изменённых строк
+     */
+    public @Nonnull List<@Nonnull AuthorActivity> getAuthorActivity(LocalDate from, int limit) {
+        return analyticsService.getAuthorActivity(orEpoch(from), clamp(limit));
+    }
+
+    /**
+     * Частота коммитов по дням, неделям или месяцам
+     */
+    public @Nonnull List<HistoryAnalyticsService.@Nonnull PeriodActivity> getCommitRate(LocalDate from,
+            HistoryAnalyticsService.Period period) {
+        return analyticsService.getCommitRate(orEpoch(from), period);
+    }
+
+    private static LocalDate orEpoch(LocalDate from) {
+        return from != null ? from : LocalDate.EPOCH;
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,430 @@
+package ru.dovakun.services;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.dovakun.data.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Аналитика истории: самые изменяемые файлы, активность авторов и частота коммитов.
+ * Статистика по коммитам один раз строится в БД, а затем дополняется только новыми коммитами.
+ * В той же транзакции, что и построчные данные, обновляются суммы по файлу и автору за месяц
+ * и по дню, поэтому запрос дашборда читает эти суммы, а не группирует всю историю.
+ * Файлы и авторы считаются по целым месяцам: дата начала округляется до первого числа.
+ */
+@Service
+public class HistoryAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryAnalyticsService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    public enum Period { DAY, WEEK, MONTH }
+
+    public record PeriodActivity(LocalDate periodStart, long commits, long linesAdded, long linesDeleted) {}
+
+    private final String pathRepo;
+    private final GitService gitService;
+    private final CommitStatsRepository commitStatsRepository;
+    private final FileChurnRepository fileChurnRepository;
+    private final FileChurnMonthlyRepository fileMonthlyRepository;
+    private final AuthorActivityMonthlyRepository authorMonthlyRepository;
+    private final CommitActivityDailyRepository dailyRepository;
+    private final HistoryIndexStateRepository stateRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock indexLock = new ReentrantLock();
+    private volatile String indexedHead;
+
+    public HistoryAnalyticsService(@Value("${git.localRepo}") String pathRepo, GitService gitService,
+                                   CommitStatsRepository commitStatsRepository, FileChurnRepository fileChurnRepository,
+                                   FileChurnMonthlyRepository fileMonthlyRepository,
+                                   AuthorActivityMonthlyRepository authorMonthlyRepository,
+                                   CommitActivityDailyRepository dailyRepository,
+                                   HistoryIndexStateRepository stateRepository, TransactionTemplate transactionTemplate) {
+        this.pathRepo = pathRepo;
+        this.gitService = gitService;
+        this.commitStatsRepository = commitStatsRepository;
+        this.fileChurnRepository = fileChurnRepository;
+        this.fileMonthlyRepository = fileMonthlyRepository;
+        this.authorMonthlyRepository = authorMonthlyRepository;
+        this.dailyRepository = dailyRepository;
+        this.stateRepository = stateRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexOnStartup() {
+        Thread.ofVirtual().name("history-analytics").start(this::refresh);
+    }
+
+    @EventListener
+    public void onRepositoryChanged(RepositoryChangedEvent event) {
+        if (event.refsChanged()) {
+            Thread.ofVirtual().name("history-analytics").start(this::refresh);
+        }
+    }
+
+    public List<FileHotspot> getHotspots(LocalDate from, int limit) {
+        refreshIfStale();
+        return fileMonthlyRepository.findHotspots(monthStart(from), PageRequest.ofSize(limit));
+    }
+
+    public List<AuthorActivity> getAuthorActivity(LocalDate from, int limit) {
+        refreshIfStale();
+        return authorMonthlyRepository.findAuthorActivity(monthStart(from), PageRequest.ofSize(limit));
+    }
+
+    public List<PeriodActivity> getCommitRate(LocalDate from, Period period) {
+        refreshIfStale();
+        Map<LocalDate, long[]> buckets = new TreeMap<>();
+        for (DailyActivity day : dailyRepository.findDailyActivity(from)) {
+            long[] totals = buckets.computeIfAbsent(periodStart(day.day(), period), k -> new long[3]);
+            totals[0] += day.commits();
+            totals[1] += day.linesAdded();
+            totals[2] += day.linesDeleted();
+        }
+        List<PeriodActivity> result = new ArrayList<>(buckets.size());
+        buckets.forEach((start, totals) -> result.add(new PeriodActivity(start, totals[0], totals[1], totals[2])));
+        return result;
+    }
+
+    private static LocalDate periodStart(LocalDate day, Period period) {
+        return switch (period) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> monthStart(day);
+        };
+    }
+
+    private static LocalDate monthStart(LocalDate day) {
+        return day.withDayOfMonth(1);
+    }
+
+    /**
+     * Если HEAD сдвинулся, дополняет статистику в фоне; текущий запрос отвечает по уже
+     * построенным данным и не ждёт индексации.
+     */
+    private void refreshIfStale() {
+        try {
+            ObjectId head = gitService.repository().resolve(Constants.HEAD);
+            if (head != null && !head.getName().equals(indexedHead) && !indexLock.isLocked()) {
+                Thread.ofVirtual().name("history-analytics").start(this::refresh);
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось проверить HEAD для аналитики истории", e);
+        }
+    }
+
+    /**
+     * Дополняет статистику коммитами, появившимися после последней индексации.
+     * Если прошлый HEAD больше не предок текущего (reset, переход на другую ветку, amend),
+     * статистика сверяется с достижимой историей: недостающие коммиты добавляются, а ставшие
+     * недостижимыми удаляются одной транзакцией. Таблицы не очищаются, поэтому дашборд всё
+     * время видит полные данные.
+     */
+    public void refresh() {
+        if (!indexLock.tryLock()) {
+            return;
+        }
+        try {
+            index();
+        } catch (Exception e) {
+            log.error("Ошибка при построении аналитики истории", e);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void index() throws Exception {
+        Repository repository = gitService.repository();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return;
+        }
+        HistoryIndexState state = stateRepository.findByRepo(pathRepo).orElseGet(() -> {
+            HistoryIndexState created = new HistoryIndexState();
+            created.setRepo(pathRepo);
+            return created;
+        });
+        if (head.getName().equals(state.getHeadId())) {
+            indexedHead = state.getHeadId();
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        int indexed = 0;
+        int removed = 0;
+        try (RevWalk walk = new RevWalk(repository);
+             DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            formatter.setRepository(repository);
+            formatter.setDiffComparator(RawTextComparator.DEFAULT);
+            formatter.setDetectRenames(true);
+
+            RevCommit headCommit = walk.parseCommit(head);
+            RevCommit previous = previousHead(walk, state.getHeadId());
+            boolean incremental = previous != null && walk.isMergedInto(previous, headCommit);
+            walk.reset();
+            walk.markStart(headCommit);
+            // Уже посчитанные коммиты; те, что не встретятся при обходе, стали недостижимыми
+            Set<String> unreachable = new HashSet<>();
+            if (incremental) {
+                walk.markUninteresting(previous);
+            } else {
+                unreachable.addAll(commitStatsRepository.findAllCommitIds());
+            }
+
+            List<CommitStats> commits = new ArrayList<>(BATCH_SIZE);
+            List<FileChurn> files = new ArrayList<>();
+            for (RevCommit commit : walk) {
+                if (unreachable.remove(commit.getName())) {
+                    continue;
+                }
+                collect(walk, formatter, commit, commits, files);
+                if (commits.size() >= BATCH_SIZE) {
+                    indexed += save(commits, files);
+                }
+            }
+            indexed += save(commits, files);
+            removed = remove(unreachable);
+        }
+
+        state.setHeadId(head.getName());
+        stateRepository.save(state);
+        indexedHead = head.getName();
+        log.info("Аналитика истории обновлена: добавлено {}, удалено {} коммитов за {} мс",
+                indexed, removed, System.currentTimeMillis() - started);
+    }
+
+    private static RevCommit previousHead(RevWalk walk, String headId) throws Exception {
+        if (headId == null) {
+            return null;
+        }
+        try {
+            return walk.parseCommit(ObjectId.fromString(headId));
+        } catch (MissingObjectException e) {
+            return null;
+        }
+    }
+
+    private static void collect(RevWalk walk, DiffFormatter formatter, RevCommit commit,
+                                List<CommitStats> commits, List<FileChurn> files) throws Exception {
+        PersonIdent author = commit.getAuthorIdent();
+        LocalDate date = LocalDate.ofInstant(author.getWhenAsInstant(),
+                author.getZoneId() != null ? author.getZoneId() : ZoneId.systemDefault());
+
+        CommitStats stats = new CommitStats();
+        stats.setCommitId(commit.getName());
+        stats.setAuthorName(author.getName());
+        stats.setAuthorEmail(author.getEmailAddress());
+        stats.setCommitDate(date);
+
+        // Изменения merge-коммитов уже учтены в коммитах сливаемых веток
+        if (commit.getParentCount() <= 1) {
+            ObjectId parentTree = null;
+            if (commit.getParentCount() == 1) {
+                parentTree = walk.parseCommit(commit.getParent(0)).getTree();
+            }
+            for (DiffEntry entry : formatter.scan(parentTree, commit.getTree())) {
+                int added = 0;
+                int deleted = 0;
+                for (Edit edit : formatter.toFileHeader(entry).toEditList()) {
+                    added += edit.getLengthB();
+                    deleted += edit.getLengthA();
+                }
+                FileChurn churn = new FileChurn();
+                churn.setCommitId(commit.getName());
+                churn.setPath(entry.getChangeType() == DiffEntry.ChangeType.DELETE ? entry.getOldPath() : entry.getNewPath());
+                churn.setAuthorEmail(author.getEmailAddress());
+                churn.setCommitDate(date);
+                churn.setLinesAdded(added);
+                churn.setLinesDeleted(deleted);
+                files.add(churn);
+
+                stats.setFilesChanged(stats.getFilesChanged() + 1);
+                stats.setLinesAdded(stats.getLinesAdded() + added);
+                stats.setLinesDeleted(stats.getLinesDeleted() + deleted);
+            }
+        }
+        commits.add(stats);
+    }
+
+    /**
+     * Сохраняет пачку в одной транзакции, пропуская коммиты, записанные прерванной ранее индексацией.
+     */
+    private int save(List<CommitStats> commits, List<FileChurn> files) {
+        if (commits.isEmpty()) {
+            return 0;
+        }
+        Integer saved = transactionTemplate.execute(status -> {
+            Set<String> existing = new HashSet<>(commitStatsRepository.findExistingCommitIds(
+                    commits.stream().map(CommitStats::getCommitId).toList()));
+            List<CommitStats> newCommits = commits.stream().filter(c -> !existing.contains(c.getCommitId())).toList();
+            List<FileChurn> newFiles = files.stream().filter(f -> !existing.contains(f.getCommitId())).toList();
+            commitStatsRepository.saveAll(newCommits);
+            fileChurnRepository.saveAll(newFiles);
+            aggregate(newCommits, newFiles, 1);
+            return newCommits.size();
+        });
+        commits.clear();
+        files.clear();
+        return saved != null ? saved : 0;
+    }
+
+    /**
+     * Удаляет статистику недостижимых коммитов и вычитает её из сумм в одной транзакции.
+     */
+    private int remove(Set<String> commitIds) {
+        if (commitIds.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> ids = new ArrayList<>(commitIds);
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                List<String> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+                List<CommitStats> commits = commitStatsRepository.findByCommitIdIn(chunk);
+                List<FileChurn> files = fileChurnRepository.findByCommitIdIn(chunk);
+                fileChurnRepository.deleteByCommitIdIn(chunk);
+                commitStatsRepository.deleteByCommitIdIn(chunk);
+                aggregate(commits, files, -1);
+            }
+        });
+        return commitIds.size();
+    }
+
+    private record FileMonth(String path, LocalDate month) {}
+
+    private record AuthorMonth(String authorEmail, LocalDate month) {}
+
+    /**
+     * Прибавляет ({@code sign = 1}) или вычитает ({@code sign = -1}) коммиты из сумм по месяцам
+     * и дням. Вызывается в транзакции, которая меняет построчные данные; при вычитании
+     * построчные данные уже удалены. Суммы, где не осталось коммитов, удаляются.
+     */
+    private void aggregate(List<CommitStats> commits, List<FileChurn> files, int sign) {
+        if (commits.isEmpty()) {
+            return;
+        }
+        aggregateFiles(files, sign);
+        aggregateAuthors(commits, sign);
+        aggregateDays(commits, sign);
+    }
+
+    private void aggregateFiles(List<FileChurn> files, int sign) {
+        if (files.isEmpty()) {
+            return;
+        }
+        Map<FileMonth, FileChurnMonthly> rows = new HashMap<>();
+        for (FileChurnMonthly row : fileMonthlyRepository.findByMonthStartInAndPathIn(
+                files.stream().map(f -> monthStart(f.getCommitDate())).collect(Collectors.toSet()),
+                files.stream().map(FileChurn::getPath).collect(Collectors.toSet()))) {
+            rows.put(new FileMonth(row.getPath(), row.getMonthStart()), row);
+        }
+        for (FileChurn file : files) {
+            FileChurnMonthly row = rows.computeIfAbsent(new FileMonth(file.getPath(), monthStart(file.getCommitDate())), key -> {
+                FileChurnMonthly created = new FileChurnMonthly();
+                created.setPath(key.path());
+                created.setMonthStart(key.month());
+                return created;
+            });
+            row.setCommits(row.getCommits() + sign);
+            row.setLinesAdded(row.getLinesAdded() + (long) sign * file.getLinesAdded());
+            row.setLinesDeleted(row.getLinesDeleted() + (long) sign * file.getLinesDeleted());
+        }
+        saveOrDelete(fileMonthlyRepository, rows.values(), row -> row.getCommits() <= 0);
+    }
+
+    private void aggregateAuthors(List<CommitStats> commits, int sign) {
+        Map<AuthorMonth, AuthorActivityMonthly> rows = new HashMap<>();
+        for (AuthorActivityMonthly row : authorMonthlyRepository.findByMonthStartInAndAuthorEmailIn(
+                commits.stream().map(c -> monthStart(c.getCommitDate())).collect(Collectors.toSet()),
+                commits.stream().map(CommitStats::getAuthorEmail).collect(Collectors.toSet()))) {
+            rows.put(new AuthorMonth(row.getAuthorEmail(), row.getMonthStart()), row);
+        }
+        for (CommitStats commit : commits) {
+            AuthorActivityMonthly row = rows.computeIfAbsent(
+                    new AuthorMonth(commit.getAuthorEmail(), monthStart(commit.getCommitDate())), key -> {
+                        AuthorActivityMonthly created = new AuthorActivityMonthly();
+                        created.setAuthorEmail(key.authorEmail());
+                        created.setMonthStart(key.month());
+                        return created;
+                    });
+            row.setCommits(row.getCommits() + sign);
+            row.setLinesAdded(row.getLinesAdded() + (long) sign * commit.getLinesAdded());
+            row.setLinesDeleted(row.getLinesDeleted() + (long) sign * commit.getLinesDeleted());
+            if (sign > 0) {
+                row.setAuthorName(commit.getAuthorName());
+                if (row.getFirstCommit() == null || commit.getCommitDate().isBefore(row.getFirstCommit())) {
+                    row.setFirstCommit(commit.getCommitDate());
+                }
+                if (row.getLastCommit() == null || commit.getCommitDate().isAfter(row.getLastCommit())) {
+                    row.setLastCommit(commit.getCommitDate());
+                }
+            }
+        }
+        if (sign < 0) {
+            // Границы месяца после удаления берутся по оставшимся коммитам автора
+            for (AuthorActivityMonthly row : rows.values()) {
+                if (row.getCommits() > 0) {
+                    LocalDate next = row.getMonthStart().plusMonths(1);
+                    row.setFirstCommit(commitStatsRepository.findFirstCommitDate(row.getAuthorEmail(), row.getMonthStart(), next));
+                    row.setLastCommit(commitStatsRepository.findLastCommitDate(row.getAuthorEmail(), row.getMonthStart(), next));
+                }
+            }
+        }
+        saveOrDelete(authorMonthlyRepository, rows.values(), row -> row.getCommits() <= 0);
+    }
+
+    private void aggregateDays(List<CommitStats> commits, int sign) {
+        Map<LocalDate, CommitActivityDaily> rows = new HashMap<>();
+        for (CommitActivityDaily row : dailyRepository.findByCommitDayIn(
+                commits.stream().map(CommitStats::getCommitDate).collect(Collectors.toSet()))) {
+            rows.put(row.getCommitDay(), row);
+        }
+        for (CommitStats commit : commits) {
+            CommitActivityDaily row = rows.computeIfAbsent(commit.getCommitDate(), day -> {
+                CommitActivityDaily created = new CommitActivityDaily();
+                created.setCommitDay(day);
+                return created;
+            });
+            row.setCommits(row.getCommits() + sign);
+            row.setLinesAdded(row.getLinesAdded() + (long) sign * commit.getLinesAdded());
+            row.setLinesDeleted(row.getLinesDeleted() + (long) sign * commit.getLinesDeleted());
+        }
+        saveOrDelete(dailyRepository, rows.values(), row -> row.getCommits() <= 0);
+    }
+
+    private static <T extends AbstractEntity> void saveOrDelete(JpaRepository<T, Long> repository, Collection<T> rows,
+                                                                Predicate<T> empty) {
+        List<T> toDelete = rows.stream().filter(empty).filter(row -> row.getId() != null).toList();
+        repository.saveAll(rows.stream().filter(empty.negate()).toList());
+        repository.deleteAllInBatch(toDelete);
+    }
+}
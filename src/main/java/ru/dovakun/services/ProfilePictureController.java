@@ -0,0 +1,100 @@
+package ru.dovakun.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.dovakun.data.UserInfo;
+import ru.dovakun.data.UserRepository;
+import ru.dovakun.security.AuthenticatedUser;
+
+/**
+ * Отдаёт уменьшенное изображение профиля текущего пользователя. Миниатюры кэшируются отдельно
+ * от пользователя, а ETag строится из id и версии сущности, поэтому повторные запросы браузера
+ * завершаются ответом 304 без обращения к БД.
+ */
+@RestController
+public class ProfilePictureController {
+
+    private static final int MAX_SIZE = 256;
+
+    private final AuthenticatedUser authenticatedUser;
+    private final UserRepository userRepository;
+    private final Cache<String, byte[]> thumbnails;
+
+    public ProfilePictureController(AuthenticatedUser authenticatedUser, UserRepository userRepository,
+            @Value("${users.pictureCache.maxSize:500}") long maxSize) {
+        this.authenticatedUser = authenticatedUser;
+        this.userRepository = userRepository;
+        this.thumbnails = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    @GetMapping("/profile-picture")
+    public ResponseEntity<byte[]> getProfilePicture(@RequestParam(defaultValue = "64") int size, WebRequest request) {
+        Optional<UserInfo> user = authenticatedUser.get();
+        if (user.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        int targetSize = Math.max(1, Math.min(size, MAX_SIZE));
+        String key = user.get().id() + "-" + user.get().version() + "-" + targetSize;
+        String eTag = "\"" + key + "\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        byte[] thumbnail = thumbnails.get(key, k -> userRepository.findProfilePictureById(user.get().id())
+                .map(picture -> resize(picture, targetSize))
+                .orElse(new byte[0]));
+        if (thumbnail.length == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(eTag)
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                .body(thumbnail);
+    }
+
+    private static byte[] resize(byte[] picture, int size) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(picture));
+            if (source == null) {
+                return new byte[0];
+            }
+            double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+            BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = target.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(target, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось уменьшить изображение профиля", e);
+        }
+    }
+}
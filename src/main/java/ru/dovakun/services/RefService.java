@@ -0,0 +1,161 @@
+package ru.dovakun.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Список веток и тегов. Снимок {@code RefDatabase} кэшируется до изменения ссылок, а счётчики
+ * ahead/behind относительно выбранной базы — по паре (id ветки, id базы), поэтому они
+ * пересчитываются только для сдвинувшихся веток.
+ */
+@Service
+public class RefService {
+
+    public enum RefType { BRANCH, REMOTE, TAG }
+
+    public record RefInfo(String name, String shortName, RefType type, String commitHash, String date, String message) {}
+
+    public record RefComparison(RefInfo ref, Integer ahead, Integer behind, boolean aheadTruncated,
+                                boolean behindTruncated) {}
+
+    private record PairKey(ObjectId ref, ObjectId base) {}
+
+    private record AheadBehind(int ahead, int behind, boolean aheadTruncated, boolean behindTruncated) {}
+
+    private final GitService gitService;
+    private final int countLimit;
+    private final Cache<PairKey, AheadBehind> aheadBehindCache;
+
+    // Поколение снимка: не даёт сохранить снимок, прочитанный до пришедшего во время загрузки события
+    private final AtomicLong generation = new AtomicLong();
+    private volatile List<RefInfo> refs;
+
+    public RefService(GitService gitService, @Value("${git.refs.aheadBehindLimit:1000}") int countLimit,
+                      @Value("${git.refs.aheadBehindCacheSize:10000}") long cacheSize) {
+        this.gitService = gitService;
+        this.countLimit = countLimit;
+        this.aheadBehindCache = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    @EventListener
+    public void onRepositoryChanged(RepositoryChangedEvent event) {
+        if (event.refsChanged()) {
+            generation.incrementAndGet();
+            refs = null;
+        }
+    }
+
+    public List<RefInfo> getRefs() throws IOException {
+        List<RefInfo> current = refs;
+        if (current == null) {
+            long loadedGeneration = generation.get();
+            current = loadRefs();
+            if (generation.get() == loadedGeneration) {
+                refs = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Ветки со счётчиками коммитов впереди и позади базы; теги возвращаются без счётчиков.
+     * Счёт останавливается на {@code git.refs.aheadBehindLimit}, тогда соответствующий
+     * флаг {@code aheadTruncated} или {@code behindTruncated} равен {@code true}.
+     * Обход прерывается, если монитор отменён или вышло время.
+     */
+    public List<RefComparison> compareWith(String base, CancellableProgressMonitor monitor) throws IOException {
+        Repository repository = gitService.repository();
+        ObjectId baseId = repository.resolve(base == null || base.isBlank() ? Constants.HEAD : base + "^{commit}");
+        if (baseId == null) {
+            throw new IllegalArgumentException("База для сравнения не найдена: " + base);
+        }
+
+        List<RefInfo> current = getRefs();
+        List<RefComparison> result = new ArrayList<>(current.size());
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            for (RefInfo ref : current) {
+                if (ref.type() == RefType.TAG) {
+                    result.add(new RefComparison(ref, null, null, false, false));
+                    continue;
+                }
+                ObjectId refId = ObjectId.fromString(ref.commitHash());
+                PairKey key = new PairKey(refId, baseId.copy());
+                AheadBehind counts = aheadBehindCache.getIfPresent(key);
+                if (counts == null) {
+                    counts = count(walk, refId, baseId, monitor);
+                    aheadBehindCache.put(key, counts);
+                }
+                result.add(new RefComparison(ref, counts.ahead(), counts.behind(), counts.aheadTruncated(),
+                        counts.behindTruncated()));
+            }
+        }
+        return result;
+    }
+
+    private AheadBehind count(RevWalk walk, ObjectId refId, ObjectId baseId, CancellableProgressMonitor monitor)
+            throws IOException {
+        if (refId.equals(baseId)) {
+            return new AheadBehind(0, 0, false, false);
+        }
+        int ahead = countReachable(walk, refId, baseId, monitor);
+        int behind = countReachable(walk, baseId, refId, monitor);
+        return new AheadBehind(Math.min(ahead, countLimit), Math.min(behind, countLimit),
+                ahead > countLimit, behind > countLimit);
+    }
+
+    /**
+     * Число коммитов, достижимых из {@code tip}, но не из {@code other}; не больше limit + 1.
+     */
+    private int countReachable(RevWalk walk, ObjectId tip, ObjectId other, CancellableProgressMonitor monitor)
+            throws IOException {
+        walk.reset();
+        walk.markStart(walk.parseCommit(tip));
+        walk.markUninteresting(walk.parseCommit(other));
+        int count = 0;
+        while (count <= countLimit && walk.next() != null) {
+            monitor.checkCancelled();
+            count++;
+        }
+        return count;
+    }
+
+    private List<RefInfo> loadRefs() throws IOException {
+        Repository repository = gitService.repository();
+        List<Ref> all = repository.getRefDatabase()
+                .getRefsByPrefix(Constants.R_HEADS, Constants.R_REMOTES, Constants.R_TAGS);
+        List<RefInfo> result = new ArrayList<>(all.size());
+        try (RevWalk walk = new RevWalk(repository)) {
+            for (Ref ref : all) {
+                if (ref.isSymbolic() || ref.getObjectId() == null) {
+                    continue;
+                }
+                RevObject target = walk.peel(walk.parseAny(ref.getObjectId()));
+                if (!(target instanceof RevCommit commit)) {
+                    continue;
+                }
+                String name = ref.getName();
+                RefType type = name.startsWith(Constants.R_TAGS) ? RefType.TAG
+                        : name.startsWith(Constants.R_REMOTES) ? RefType.REMOTE : RefType.BRANCH;
+                result.add(new RefInfo(name, Repository.shortenRefName(name), type, commit.getName(),
+                        commit.getAuthorIdent().getWhenAsInstant().toString(), commit.getShortMessage()));
+            }
+        }
+        return List.copyOf(result);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.dovakun.services;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Отслеживает изменения ссылок и индекса репозитория, сделанные этим или другими экземплярами
+ * приложения. Сравнивает снимок {@code RefDatabase} и время изменения/размер файла индекса
+ * с предыдущим и при расхождении публикует {@link RepositoryChangedEvent}.
+ */
+@Component
+public class RepositoryChangeMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryChangeMonitor.class);
+
+    private record Snapshot(Map<String, ObjectId> refs, long indexModified, long indexSize) {}
+
+    private final GitService gitService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private Snapshot last;
+
+    public RepositoryChangeMonitor(GitService gitService, ApplicationEventPublisher eventPublisher) {
+        this.gitService = gitService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(fixedDelayString = "${git.changePollMillis:2000}")
+    public void poll() {
+        try {
+            checkForChanges();
+        } catch (IOException e) {
+            log.warn("Не удалось проверить изменения репозитория", e);
+        }
+    }
+
+    @EventListener(RepositoryWriteLease.WriteCompleted.class)
+    public void onWriteCompleted() {
+        poll();
+    }
+
+    public synchronized void checkForChanges() throws IOException {
+        Snapshot current = snapshot(gitService.repository());
+        Snapshot previous = last;
+        last = current;
+        if (previous == null) {
+            return;
+        }
+        boolean refsChanged = !previous.refs().equals(current.refs());
+        boolean indexChanged = previous.indexModified() != current.indexModified()
+                || previous.indexSize() != current.indexSize();
+        if (refsChanged || indexChanged) {
+            eventPublisher.publishEvent(new RepositoryChangedEvent(refsChanged, indexChanged));
+        }
+    }
+
+    private static Snapshot snapshot(Repository repository) throws IOException {
+        Map<String, ObjectId> refs = new HashMap<>();
+        for (Ref ref : repository.getRefDatabase().getRefs()) {
+            refs.put(ref.getName(), ref.getObjectId());
+        }
+        Ref head = repository.exactRef("HEAD");
+        if (head != null) {
+            refs.put(head.getName() + (head.isSymbolic() ? " -> " + head.getTarget().getName() : ""), head.getObjectId());
+        }
+        File index = repository.isBare() ? null : repository.getIndexFile();
+        return new Snapshot(refs, index != null ? index.lastModified() : 0, index != null ? index.length() : 0);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.dovakun.services;
+
+/**
+ * Публикуется, когда в репозитории изменились ссылки или индекс, в том числе другим процессом.
+ * Слушатели сбрасывают свои производные кэши.
+ */
+public record RepositoryChangedEvent(boolean refsChanged, boolean indexChanged) {}
@@ -0,0 +1,95 @@
+package ru.dovakun.services;
+
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Право на запись в репозиторий. Внутри процесса операции записи выполняются по одной.
+ * В кластерном режиме ({@code git.cluster.enabled}) дополнительно берётся файловая блокировка
+ * в каталоге {@code .git}, общая для всех экземпляров на одном томе; ОС снимает её при падении
+ * процесса, поэтому зависших блокировок не остаётся.
+ */
+@Component
+public class RepositoryWriteLease {
+
+    /**
+     * Публикуется после каждой операции записи, чтобы изменения были замечены без ожидания опроса.
+     */
+    public record WriteCompleted() {}
+
+    private static final String LOCK_FILE = "gitweb-writer.lock";
+    private static final long RETRY_MILLIS = 50;
+
+    private final Path lockPath;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean clusterEnabled;
+    private final Duration acquireTimeout;
+
+    private final ReentrantLock localLock = new ReentrantLock(true);
+    private final AtomicLong generation = new AtomicLong();
+
+    public RepositoryWriteLease(@Value("${git.localRepo}") String pathRepo, ApplicationEventPublisher eventPublisher,
+                                @Value("${git.cluster.enabled:false}") boolean clusterEnabled,
+                                @Value("${git.cluster.leaseTimeout:PT30S}") Duration acquireTimeout) {
+        File gitDir = new FileRepositoryBuilder().findGitDir(new File(pathRepo)).getGitDir();
+        this.lockPath = (gitDir != null ? gitDir : new File(pathRepo)).toPath().resolve(LOCK_FILE);
+        this.eventPublisher = eventPublisher;
+        this.clusterEnabled = clusterEnabled;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Номер последней завершённой в этом процессе записи. Увеличивается до того, как
+     * {@link #runExclusive} вернёт управление, поэтому запрос, начатый после записи, видит новый номер.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public <T> T runExclusive(Callable<T> action) throws Exception {
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+        if (!localLock.tryLock(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("Репозиторий занят другой операцией записи");
+        }
+        try {
+            if (!clusterEnabled) {
+                return action.call();
+            }
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = acquire(channel, deadline)) {
+                return action.call();
+            }
+        } finally {
+            generation.incrementAndGet();
+            localLock.unlock();
+            eventPublisher.publishEvent(new WriteCompleted());
+        }
+    }
+
+    private static FileLock acquire(FileChannel channel, long deadline) throws IOException, InterruptedException {
+        while (true) {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IllegalStateException("Репозиторий занят операцией записи другого экземпляра");
+            }
+            Thread.sleep(RETRY_MILLIS);
+        }
+    }
+}
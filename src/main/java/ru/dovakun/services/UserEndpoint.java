@@ -4,7 +4,7 @@ import com.vaadin.flow.server.auth.AnonymousAllowed;
 import com.vaadin.hilla.BrowserCallable;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
-import ru.dovakun.data.User;
+import ru.dovakun.data.UserInfo;
 import ru.dovakun.security.AuthenticatedUser;
 
 @BrowserCallable
@@ -14,7 +14,7 @@ public class UserEndpoint {
     @Autowired
     private AuthenticatedUser authenticatedUser;
 
-    public Optional<User> getAuthenticatedUser() {
+    public Optional<UserInfo> getAuthenticatedUser() {
         return authenticatedUser.get();
     }
 }
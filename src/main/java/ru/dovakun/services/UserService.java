@@ -7,14 +7,17 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import ru.dovakun.data.User;
 import ru.dovakun.data.UserRepository;
+import ru.dovakun.security.UserCache;
 
 @Service
 public class UserService {
 
     private final UserRepository repository;
+    private final UserCache userCache;
 
-    public UserService(UserRepository repository) {
+    public UserService(UserRepository repository, UserCache userCache) {
         this.repository = repository;
+        this.userCache = userCache;
     }
 
     public Optional<User> get(Long id) {
@@ -22,10 +25,14 @@ public class UserService {
     }
 
     public User save(User entity) {
-        return repository.save(entity);
+        User saved = repository.save(entity);
+        // Имя пользователя могло измениться, поэтому сбрасываем кэш целиком
+        userCache.evictAll();
+        return saved;
     }
 
     public void delete(Long id) {
+        repository.findById(id).ifPresent(user -> userCache.evict(user.getUsername()));
         repository.deleteById(id);
     }
 
@@ -0,0 +1,183 @@
+package ru.dovakun.services;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+import ru.dovakun.services.DiffService.Highlight;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Сравнение двух строк по словам, а внутри заменённых слов — по символам. Строка разбивается
+ * на слова (буквы, цифры, {@code _}), пробельные промежутки и отдельные знаки; разбиение идёт
+ * по кодовым точкам, поэтому суррогатная пара (например, эмодзи) не делится пополам.
+ * Последовательности сравниваются тем же histogram-алгоритмом, что и строки файла. Если
+ * заменённые слова в основном совпадают посимвольно ({@code getUser} → {@code getUsers},
+ * правка внутри слитного CJK-текста), подсвечиваются только изменённые символы.
+ * Слова не копируются в отдельные строки: последовательность хранит исходный массив символов
+ * и границы элементов.
+ */
+final class WordDiff {
+
+    private static final DiffAlgorithm ALGORITHM =
+            DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+
+    private static final int WORD = 0;
+    private static final int SPACE = 1;
+    private static final int PUNCTUATION = 2;
+
+    private WordDiff() {
+    }
+
+    /**
+     * Добавляет в {@code oldRanges} и {@code newRanges} изменённые участки старой и новой строки.
+     * Границы участков — индексы UTF-16 и никогда не попадают внутрь суррогатной пары.
+     */
+    static void compare(String oldLine, String newLine, List<Highlight> oldRanges, List<Highlight> newRanges) {
+        char[] oldChars = oldLine.toCharArray();
+        char[] newChars = newLine.toCharArray();
+        Tokens oldWords = Tokens.words(oldChars);
+        Tokens newWords = Tokens.words(newChars);
+        EditList edits = ALGORITHM.diff(TokenComparator.INSTANCE, oldWords, newWords);
+        for (Edit edit : edits) {
+            int oldStart = oldWords.start(edit.getBeginA());
+            int oldEnd = oldWords.start(edit.getEndA());
+            int newStart = newWords.start(edit.getBeginB());
+            int newEnd = newWords.start(edit.getEndB());
+            if (edit.getType() != Edit.Type.REPLACE
+                    || !compareChars(oldChars, oldStart, oldEnd, newChars, newStart, newEnd, oldRanges, newRanges)) {
+                add(oldRanges, oldStart, oldEnd);
+                add(newRanges, newStart, newEnd);
+            }
+        }
+    }
+
+    /**
+     * Посимвольное сравнение заменённых участков. Возвращает {@code false}, если общих символов
+     * меньше двух третей длинного участка: у разных слов совпадают отдельные буквы
+     * ({@code beta} и {@code delta}), и подсветка по символам была бы шумом, поэтому участок
+     * подсвечивается целиком.
+     */
+    private static boolean compareChars(char[] oldChars, int oldStart, int oldEnd, char[] newChars, int newStart,
+                                        int newEnd, List<Highlight> oldRanges, List<Highlight> newRanges) {
+        Tokens oldPoints = Tokens.codePoints(oldChars, oldStart, oldEnd);
+        Tokens newPoints = Tokens.codePoints(newChars, newStart, newEnd);
+        EditList edits = ALGORITHM.diff(TokenComparator.INSTANCE, oldPoints, newPoints);
+        int changed = 0;
+        for (Edit edit : edits) {
+            changed += edit.getLengthA();
+        }
+        int common = oldPoints.size() - changed;
+        if (3 * common < 2 * Math.max(oldPoints.size(), newPoints.size())) {
+            return false;
+        }
+        for (Edit edit : edits) {
+            add(oldRanges, oldPoints.start(edit.getBeginA()), oldPoints.start(edit.getEndA()));
+            add(newRanges, newPoints.start(edit.getBeginB()), newPoints.start(edit.getEndB()));
+        }
+        return true;
+    }
+
+    /**
+     * Добавляет участок, сливая его с предыдущим, если они соприкасаются.
+     */
+    private static void add(List<Highlight> ranges, int start, int end) {
+        if (end <= start) {
+            return;
+        }
+        if (!ranges.isEmpty() && ranges.get(ranges.size() - 1).end() == start) {
+            start = ranges.remove(ranges.size() - 1).start();
+        }
+        ranges.add(new Highlight(start, end));
+    }
+
+    /**
+     * Последовательность слов или кодовых точек над участком исходного массива символов.
+     */
+    private static final class Tokens extends Sequence {
+
+        private final char[] chars;
+        // bounds[i] — начало i-го элемента, bounds[size] — конец участка
+        private final int[] bounds;
+        private final int size;
+
+        private Tokens(char[] chars, int[] bounds, int size) {
+            this.chars = chars;
+            this.bounds = bounds;
+            this.size = size;
+        }
+
+        static Tokens words(char[] chars) {
+            int[] bounds = new int[chars.length + 1];
+            int count = 0;
+            int i = 0;
+            while (i < chars.length) {
+                bounds[count++] = i;
+                int codePoint = Character.codePointAt(chars, i);
+                int kind = kind(codePoint);
+                i += Character.charCount(codePoint);
+                if (kind != PUNCTUATION) {
+                    while (i < chars.length && kind(codePoint = Character.codePointAt(chars, i)) == kind) {
+                        i += Character.charCount(codePoint);
+                    }
+                }
+            }
+            bounds[count] = chars.length;
+            return new Tokens(chars, bounds, count);
+        }
+
+        static Tokens codePoints(char[] chars, int from, int to) {
+            int[] bounds = new int[to - from + 1];
+            int count = 0;
+            int i = from;
+            while (i < to) {
+                bounds[count++] = i;
+                i += Character.charCount(Character.codePointAt(chars, i, to));
+            }
+            bounds[count] = to;
+            return new Tokens(chars, bounds, count);
+        }
+
+        int start(int index) {
+            return bounds[index];
+        }
+
+        int end(int index) {
+            return bounds[index + 1];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static int kind(int codePoint) {
+        if (Character.isLetterOrDigit(codePoint) || codePoint == '_') {
+            return WORD;
+        }
+        return Character.isWhitespace(codePoint) ? SPACE : PUNCTUATION;
+    }
+
+    private static final class TokenComparator extends SequenceComparator<Tokens> {
+
+        private static final TokenComparator INSTANCE = new TokenComparator();
+
+        @Override
+        public boolean equals(Tokens a, int ai, Tokens b, int bi) {
+            return Arrays.equals(a.chars, a.start(ai), a.end(ai), b.chars, b.start(bi), b.end(bi));
+        }
+
+        @Override
+        public int hash(Tokens seq, int index) {
+            int hash = 1;
+            for (int i = seq.start(index); i < seq.end(index); i++) {
+                hash = 31 * hash + seq.chars[i];
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.dovakun.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.dovakun.services.DiffService.DiffHunk;
+import ru.dovakun.services.DiffService.DiffLine;
+import ru.dovakun.services.DiffService.FileDiff;
+import ru.dovakun.services.DiffService.Highlight;
+import ru.dovakun.services.DiffService.LineType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiffServiceTest {
+
+    private final DiffService diffService = new DiffService(null, 5_242_880, 1000, 67_108_864);
+
+    @AfterEach
+    void shutdown() {
+        diffService.shutdown();
+    }
+
+    @Test
+    void singleChangeGetsThreeLinesOfContext() {
+        List<String> oldLines = numbered(10);
+        List<String> newLines = new ArrayList<>(oldLines);
+        newLines.set(4, "line 5 changed");
+
+        FileDiff diff = diff(oldLines, newLines);
+
+        assertFalse(diff.binary());
+        assertEquals(1, diff.hunks().size());
+        DiffHunk hunk = diff.hunks().get(0);
+        assertEquals(2, hunk.oldStart());
+        assertEquals(7, hunk.oldCount());
+        assertEquals(2, hunk.newStart());
+        assertEquals(7, hunk.newCount());
+        assertEquals(List.of(LineType.CONTEXT, LineType.CONTEXT, LineType.CONTEXT, LineType.REMOVED, LineType.ADDED,
+                LineType.CONTEXT, LineType.CONTEXT, LineType.CONTEXT), types(hunk));
+        DiffLine added = hunk.lines().get(4);
+        assertEquals("line 5 changed", added.text());
+        assertEquals(List.of(new Highlight(6, 14)), added.highlights());
+        assertTrue(hunk.lines().get(3).highlights().isEmpty());
+    }
+
+    @Test
+    void editsWithOverlappingContextShareOneHunk() {
+        List<String> oldLines = numbered(20);
+        List<String> newLines = new ArrayList<>(oldLines);
+        newLines.set(4, "changed");
+        newLines.set(10, "changed");
+
+        List<DiffHunk> hunks = diff(oldLines, newLines).hunks();
+
+        assertEquals(1, hunks.size());
+        assertEquals(2, hunks.get(0).oldStart());
+        assertEquals(13, hunks.get(0).oldCount());
+    }
+
+    @Test
+    void distantEditsGetSeparateHunks() {
+        List<String> oldLines = numbered(30);
+        List<String> newLines = new ArrayList<>(oldLines);
+        newLines.set(2, "changed");
+        newLines.set(25, "changed");
+
+        List<DiffHunk> hunks = diff(oldLines, newLines).hunks();
+
+        assertEquals(2, hunks.size());
+        assertEquals(1, hunks.get(0).oldStart());
+        assertEquals(6, hunks.get(0).oldCount());
+        assertEquals(23, hunks.get(1).oldStart());
+        assertEquals(7, hunks.get(1).oldCount());
+    }
+
+    @Test
+    void insertedLinesAtEndHaveNoHighlights() {
+        List<String> oldLines = numbered(3);
+        List<String> newLines = new ArrayList<>(oldLines);
+        newLines.add("line 4");
+        newLines.add("line 5");
+
+        DiffHunk hunk = diff(oldLines, newLines).hunks().get(0);
+
+        assertEquals(3, hunk.oldCount());
+        assertEquals(5, hunk.newCount());
+        assertEquals(List.of(LineType.CONTEXT, LineType.CONTEXT, LineType.CONTEXT, LineType.ADDED, LineType.ADDED),
+                types(hunk));
+        assertTrue(hunk.lines().get(3).highlights().isEmpty());
+    }
+
+    @Test
+    void unpairedLinesOfReplacementHaveNoHighlights() {
+        DiffHunk hunk = diff(List.of("a", "old one", "z"), List.of("a", "new one", "extra", "z")).hunks().get(0);
+
+        assertEquals(List.of(LineType.CONTEXT, LineType.REMOVED, LineType.ADDED, LineType.ADDED, LineType.CONTEXT),
+                types(hunk));
+        assertEquals(List.of(new Highlight(0, 3)), hunk.lines().get(1).highlights());
+        assertEquals(List.of(new Highlight(0, 3)), hunk.lines().get(2).highlights());
+        assertTrue(hunk.lines().get(3).highlights().isEmpty());
+    }
+
+    @Test
+    void binaryContentIsNotDiffed() {
+        FileDiff diff = diffService.computeDiff("image.png", new byte[]{1, 0, 2}, new byte[]{1, 0, 3});
+
+        assertTrue(diff.binary());
+        assertTrue(diff.hunks().isEmpty());
+    }
+
+    private FileDiff diff(List<String> oldLines, List<String> newLines) {
+        return diffService.computeDiff("file.txt", text(oldLines), text(newLines));
+    }
+
+    private static byte[] text(List<String> lines) {
+        return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> numbered(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            lines.add("line " + i);
+        }
+        return lines;
+    }
+
+    private static List<LineType> types(DiffHunk hunk) {
+        return hunk.lines().stream().map(DiffLine::type).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.dovakun.services;
+
+import org.junit.jupiter.api.Test;
+import ru.dovakun.services.DiffService.Highlight;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WordDiffTest {
+
+    private record Result(List<Highlight> oldRanges, List<Highlight> newRanges) {}
+
+    private static Result compare(String oldLine, String newLine) {
+        List<Highlight> oldRanges = new ArrayList<>();
+        List<Highlight> newRanges = new ArrayList<>();
+        WordDiff.compare(oldLine, newLine, oldRanges, newRanges);
+        return new Result(oldRanges, newRanges);
+    }
+
+    @Test
+    void identicalLinesHaveNoHighlights() {
+        Result result = compare("int count = 0;", "int count = 0;");
+        assertTrue(result.oldRanges().isEmpty());
+        assertTrue(result.newRanges().isEmpty());
+    }
+
+    @Test
+    void replacedWordIsHighlightedWhole() {
+        Result result = compare("alpha beta gamma", "alpha delta gamma");
+        assertEquals(List.of(new Highlight(6, 10)), result.oldRanges());
+        assertEquals(List.of(new Highlight(6, 11)), result.newRanges());
+    }
+
+    @Test
+    void surrogatePairIsOneToken() {
+        Result result = compare("a 😀 b", "a 😁 b");
+        assertEquals(List.of(new Highlight(2, 4)), result.oldRanges());
+        assertEquals(List.of(new Highlight(2, 4)), result.newRanges());
+    }
+
+    @Test
+    void rangesNeverSplitSurrogatePairs() {
+        String oldLine = "x😀y 𝐀𝐁 z";
+        String newLine = "x😁y 𝐀𝐂 z";
+        Result result = compare(oldLine, newLine);
+        assertFalse(result.newRanges().isEmpty());
+        assertWholeCodePoints(oldLine, result.oldRanges());
+        assertWholeCodePoints(newLine, result.newRanges());
+    }
+
+    @Test
+    void renamedIdentifierHighlightsOnlyChangedCharacters() {
+        Result result = compare("return getUser(id);", "return getUsers(id);");
+        assertTrue(result.oldRanges().isEmpty());
+        assertEquals(List.of(new Highlight(14, 15)), result.newRanges());
+    }
+
+    @Test
+    void changeInsideCjkRunHighlightsOnlyChangedCharacters() {
+        Result result = compare("你好世界", "你们世界");
+        assertEquals(List.of(new Highlight(1, 2)), result.oldRanges());
+        assertEquals(List.of(new Highlight(1, 2)), result.newRanges());
+    }
+
+    @Test
+    void insertedWordIsHighlightedOnlyInNewLine() {
+        Result result = compare("a b", "a x b");
+        assertTrue(result.oldRanges().isEmpty());
+        assertEquals(1, result.newRanges().size());
+        Highlight inserted = result.newRanges().get(0);
+        assertEquals(2, inserted.end() - inserted.start());
+        assertTrue("a x b".substring(inserted.start(), inserted.end()).contains("x"));
+    }
+
+    @Test
+    void adjacentRangesAreMerged() {
+        Result result = compare("foo(a)", "bar[b]");
+        assertEquals(List.of(new Highlight(0, 6)), result.oldRanges());
+        assertEquals(List.of(new Highlight(0, 6)), result.newRanges());
+    }
+
+    private static void assertWholeCodePoints(String line, List<Highlight> ranges) {
+        for (Highlight range : ranges) {
+            assertFalse(splitsPair(line, range.start()), "начало внутри суррогатной пары: " + range);
+            assertFalse(splitsPair(line, range.end()), "конец внутри суррогатной пары: " + range);
+        }
+    }
+
+    private static boolean splitsPair(String line, int index) {
+        return index > 0 && index < line.length()
+                && Character.isHighSurrogate(line.charAt(index - 1)) && Character.isLowSurrogate(line.charAt(index));
+    }
+}